@@ -0,0 +1,70 @@
+package benchmark;
+
+import chess.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for move generation and check detection in the shared chess module.
+ * <p>
+ * Build and run with:
+ * <code>
+ * mvn -pl shared,benchmark package -DskipTests
+ * java -jar benchmark/target/benchmarks.jar
+ * </code>
+ * The perft benchmark reports perft runs per second, multiply by the node count printed
+ * for the position to get nodes per second.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MoveGenerationBenchmark {
+
+    @Param({
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1",
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w - - 0 1",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1"
+    })
+    public String fen;
+
+    @Param({"3"})
+    public int depth;
+
+    private ChessGame game;
+    private final LegalMoveGenerator generator = new LegalMoveGenerator();
+    private final MoveList moves = new MoveList();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        game = Fen.parse(fen);
+        System.out.printf("%nperft(%d) of %s = %d nodes%n", depth, fen, Perft.perft(game, depth));
+    }
+
+    @Benchmark
+    public long perft() {
+        return Perft.perft(game, depth);
+    }
+
+    @Benchmark
+    public void allValidMoves(Blackhole blackhole) {
+        blackhole.consume(game.allValidMoves(game.getTeamTurn()));
+    }
+
+    @Benchmark
+    public int generateIntoMoveList() {
+        moves.clear();
+        generator.setPosition(game.getBoard(), game.getTeamTurn());
+        generator.generate(moves);
+        return moves.size();
+    }
+
+    @Benchmark
+    public boolean isInCheck() {
+        return game.isInCheck(game.getTeamTurn());
+    }
+}
@@ -34,6 +34,8 @@ public class Client {
     private boolean isObserver = false;
     private boolean isPlayer = false;
     private GameData game = null;
+    // Number of server moves the local game includes, see ServerMessage.MOVE_APPLIED
+    private long sequence = 0;
 
     public Client(int serverUrl, ServerMessageHandler serverMessageHandler) {
         server = new ServerFacade(serverUrl);
@@ -216,10 +218,10 @@ public class Client {
                 default -> ChessPiece.PieceType.QUEEN;
             };
 
-            move = new ChessMove(startPosition, endPosition, promotePieceType);
+            move = ChessMove.of(startPosition, endPosition, promotePieceType);
         }
         else {
-            move = new ChessMove(startPosition, endPosition, null);
+            move = ChessMove.of(startPosition, endPosition, null);
         }
 
         ws.makeMove(authToken, game.gameID(), move);
@@ -251,7 +253,7 @@ public class Client {
             default -> throw new ResponseException(400, "Start and end position must be in form of row letter and column number. i.e. e4");
         };
 
-        return new ChessPosition(first, second);
+        return ChessPosition.of(first, second);
     }
 
     public void notifyUser(ServerMessage message) {
@@ -264,9 +266,50 @@ public class Client {
 
     public void loadGame(ServerMessage message) {
         game = message.getGame();
+        sequence = (message.getSequence() == null) ? 0 : message.getSequence();
         System.out.print(redraw());
     }
 
+    public void applyMove(ServerMessage message) {
+        if (game == null) {
+            return;
+        }
+
+        // Apply the move to the local game if it follows on from it, otherwise ask for the whole game
+        try {
+            if (message.getSequence() == null || message.getSequence() != sequence + 1) {
+                throw new InvalidMoveException("Missed a move");
+            }
+            game.game().makeMove(message.getMove());
+            ChessGame.GameStatus status = message.getStatus();
+            if (status != null && (status.checkmate() || status.stalemate())) {
+                game.game().setGameOver();
+            }
+            sequence = message.getSequence();
+            System.out.print(redraw());
+        }
+        catch (InvalidMoveException e) {
+            try {
+                requestSync();
+            }
+            catch (ResponseException ex) {
+                System.out.print(SET_TEXT_COLOR_RED + ex.getMessage());
+            }
+        }
+    }
+
+    void requestSync() throws ResponseException {
+        ws.sync(authToken, game.gameID());
+    }
+
+    GameData getGame() {
+        return game;
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
     private String redraw() {
         ChessGame.TeamColor team = getTeam(game, username);
         var board = game.game().getBoard();
@@ -41,6 +41,9 @@ public class Repl implements ServerMessageHandler {
         if (message.getServerMessageType() == ServerMessage.ServerMessageType.LOAD_GAME) {
             client.loadGame(message);
         }
+        else if (message.getServerMessageType() == ServerMessage.ServerMessageType.MOVE_APPLIED) {
+            client.applyMove(message);
+        }
         else if (message.getServerMessageType() == ServerMessage.ServerMessageType.ERROR) {
             client.notifyError(message);
         }
@@ -1,6 +1,6 @@
 package client;
 
-import com.google.gson.Gson;
+import json.JsonCodec;
 import model.create.CreateRequest;
 import model.create.CreateResult;
 import model.join.JoinRequest;
@@ -77,7 +77,7 @@ public class ServerFacade {
     private static void writeBody(Object request, HttpURLConnection http) throws IOException {
         if (request != null) {
             http.addRequestProperty("Content-Type", "application/json");
-            String reqData = new Gson().toJson(request);
+            String reqData = JsonCodec.toJson(request);
             try (OutputStream reqBody = http.getOutputStream()) {
                 reqBody.write(reqData.getBytes());
             }
@@ -103,7 +103,7 @@ public class ServerFacade {
             try (InputStream respBody = http.getInputStream()) {
                 InputStreamReader reader = new InputStreamReader(respBody);
                 if (responseClass != null) {
-                    response = new Gson().fromJson(reader, responseClass);
+                    response = JsonCodec.fromJson(reader, responseClass);
                 }
             }
         }
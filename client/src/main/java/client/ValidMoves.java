@@ -45,7 +45,7 @@ public class ValidMoves {
             for (int j = 0; j < cols; j++) {
                 ChessPiece chessPiece = matrix[i][7 - j];
                 String pieceString = Client.getPieceString(chessPiece);
-                ChessPosition newPosition = new ChessPosition(i+1, 8-j);
+                ChessPosition newPosition = ChessPosition.of(i+1, 8-j);
                 getSquareWithValidMoves(newPosition, position, board, pieceString, i, j, moves);
             }
             board.append(SET_BG_COLOR_MAGENTA + " ").append(rowNum).append(" ").append(RESET_BG_COLOR).append("\n");
@@ -71,7 +71,7 @@ public class ValidMoves {
             for (int j = 0; j < cols; j++) {
                 ChessPiece chessPiece = matrix[7 - i][j];
                 String pieceString = Client.getPieceString(chessPiece);
-                ChessPosition newPosition = new ChessPosition(8 - i, j+1);
+                ChessPosition newPosition = ChessPosition.of(8 - i, j+1);
                 getSquareWithValidMoves(newPosition, position, board, pieceString, i, j, moves);
             }
             board.append(SET_BG_COLOR_MAGENTA + " ").append(rowNum).append(" ").append(RESET_BG_COLOR).append("\n");
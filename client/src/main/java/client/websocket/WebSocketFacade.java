@@ -1,8 +1,8 @@
 package client.websocket;
 
 import chess.ChessMove;
-import com.google.gson.Gson;
 import exception.ResponseException;
+import json.JsonCodec;
 import websocket.commands.UserGameCommand;
 import websocket.messages.ServerMessage;
 
@@ -31,7 +31,7 @@ public class WebSocketFacade extends Endpoint {
             this.session.addMessageHandler(new MessageHandler.Whole<String>() {
                 @Override
                 public void onMessage(String message) {
-                    ServerMessage serverMessage = new Gson().fromJson(message, ServerMessage.class);
+                    ServerMessage serverMessage = JsonCodec.fromJson(message, ServerMessage.class);
                     serverMessageHandler.notify(serverMessage);
                 }
             });
@@ -47,8 +47,18 @@ public class WebSocketFacade extends Endpoint {
 
     public void connectToGame(String authToken, int gameId) throws ResponseException {
         try {
-            var action = new UserGameCommand(UserGameCommand.CommandType.CONNECT, authToken, gameId, null);
-            this.session.getBasicRemote().sendText(new Gson().toJson(action));
+            // Ask for MOVE_APPLIED updates, the client applies moves to its own copy of the game
+            var action = new UserGameCommand(UserGameCommand.CommandType.CONNECT, authToken, gameId, null, true);
+            this.session.getBasicRemote().sendText(JsonCodec.toJson(action));
+        } catch (IOException ex) {
+            throw new ResponseException(500, ex.getMessage());
+        }
+    }
+
+    public void sync(String authToken, int gameId) throws ResponseException {
+        try {
+            var action = new UserGameCommand(UserGameCommand.CommandType.SYNC, authToken, gameId, null);
+            this.session.getBasicRemote().sendText(JsonCodec.toJson(action));
         } catch (IOException ex) {
             throw new ResponseException(500, ex.getMessage());
         }
@@ -57,7 +67,7 @@ public class WebSocketFacade extends Endpoint {
     public void makeMove(String authToken, int gameId, ChessMove move) throws ResponseException {
         try {
             var action = new UserGameCommand(UserGameCommand.CommandType.MAKE_MOVE, authToken, gameId, move);
-            this.session.getBasicRemote().sendText(new Gson().toJson(action));
+            this.session.getBasicRemote().sendText(JsonCodec.toJson(action));
         } catch (IOException ex) {
             throw new ResponseException(500, ex.getMessage());
         }
@@ -66,7 +76,7 @@ public class WebSocketFacade extends Endpoint {
     public void resign(String authToken, int gameId) throws ResponseException {
         try {
             var action = new UserGameCommand(UserGameCommand.CommandType.RESIGN, authToken, gameId, null);
-            this.session.getBasicRemote().sendText(new Gson().toJson(action));
+            this.session.getBasicRemote().sendText(JsonCodec.toJson(action));
         } catch (IOException ex) {
             throw new ResponseException(500, ex.getMessage());
         }
@@ -75,7 +85,7 @@ public class WebSocketFacade extends Endpoint {
     public void leaveGame(String authToken, int gameId) throws ResponseException {
         try {
             var action = new UserGameCommand(UserGameCommand.CommandType.LEAVE, authToken, gameId, null);
-            this.session.getBasicRemote().sendText(new Gson().toJson(action));
+            this.session.getBasicRemote().sendText(JsonCodec.toJson(action));
             this.session.close();
         } catch (IOException ex) {
             throw new ResponseException(500, ex.getMessage());
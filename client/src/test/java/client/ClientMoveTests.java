@@ -0,0 +1,98 @@
+package client;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import model.GameData;
+import org.junit.jupiter.api.*;
+import websocket.messages.ServerMessage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClientMoveTests {
+    private static final ChessMove E4 = ChessMove.of(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null);
+    private static final ChessMove E5 = ChessMove.of(ChessPosition.of(7, 5), ChessPosition.of(5, 5), null);
+
+    private SyncCountingClient client;
+
+    @BeforeEach
+    void setUp() {
+        client = new SyncCountingClient();
+    }
+
+    @Test
+    void loadGameTakesTheServerSequence() {
+        client.loadGame(loadGame(new ChessGame(), 12));
+
+        assertEquals(12, client.getSequence());
+    }
+
+    @Test
+    void movesInSequenceAreApplied() {
+        client.loadGame(loadGame(new ChessGame(), 0));
+        client.applyMove(ServerMessage.moveApplied(E4, 1, null));
+        client.applyMove(ServerMessage.moveApplied(E5, 2, null));
+
+        assertEquals(0, client.syncs);
+        assertEquals(2, client.getSequence());
+        assertEquals(ChessGame.TeamColor.WHITE, client.getGame().game().getTeamTurn());
+        assertNotNull(client.getGame().game().getBoard().getPiece(ChessPosition.of(5, 5)));
+    }
+
+    @Test
+    void missedMoveAsksForTheWholeGame() {
+        client.loadGame(loadGame(new ChessGame(), 0));
+        client.applyMove(ServerMessage.moveApplied(E5, 2, null));
+
+        assertEquals(1, client.syncs);
+        assertEquals(0, client.getSequence());
+        assertEquals(ChessGame.TeamColor.WHITE, client.getGame().game().getTeamTurn());
+    }
+
+    @Test
+    void repeatedMoveAsksForTheWholeGame() {
+        client.loadGame(loadGame(new ChessGame(), 0));
+        client.applyMove(ServerMessage.moveApplied(E4, 1, null));
+        client.applyMove(ServerMessage.moveApplied(E4, 1, null));
+
+        assertEquals(1, client.syncs);
+        assertEquals(1, client.getSequence());
+    }
+
+    @Test
+    void illegalMoveAsksForTheWholeGame() {
+        client.loadGame(loadGame(new ChessGame(), 0));
+        client.applyMove(ServerMessage.moveApplied(E5, 1, null));
+
+        assertEquals(1, client.syncs);
+        assertEquals(0, client.getSequence());
+    }
+
+    @Test
+    void movesBeforeTheGameLoadsAreIgnored() {
+        client.applyMove(ServerMessage.moveApplied(E4, 1, null));
+
+        assertEquals(0, client.syncs);
+        assertNull(client.getGame());
+    }
+
+    private static ServerMessage loadGame(ChessGame game, long sequence) {
+        return ServerMessage.loadGame(new GameData(1, "white", "black", "game", game), sequence);
+    }
+
+    /**
+     * Counts the SYNC requests instead of sending them, no server is needed
+     */
+    private static class SyncCountingClient extends Client {
+        private int syncs;
+
+        SyncCountingClient() {
+            super(0, message -> { });
+        }
+
+        @Override
+        void requestSync() {
+            syncs++;
+        }
+    }
+}
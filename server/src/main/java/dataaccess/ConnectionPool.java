@@ -0,0 +1,514 @@
+package dataaccess;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded pool of database connections. Connections handed out look like plain JDBC
+ * connections, and closing one returns it to the pool instead of closing the socket, so
+ * callers keep using try-with-resources as before.
+ * <p>
+ * At most {@code maxSize} connections are checked out at once, callers past that wait up
+ * to the acquire timeout. A background thread keeps {@code minSize} connections open,
+ * closes connections idle past the idle timeout, and logs connections that have been
+ * checked out longer than the leak threshold along with where they were taken. Returned
+ * connections are rolled back and put back to auto-commit and read-write.
+ * <p>
+ * Each connection also keeps its most recently used prepared statements. Preparing the
+ * same SQL again on that connection hands back the statement it already has, and closing
+ * it clears its parameters and keeps it for the next caller. Statements still open when
+ * their connection is returned are closed and dropped from the cache.
+ */
+public class ConnectionPool {
+
+    /**
+     * @param minSize              connections kept open even when idle
+     * @param maxSize              most connections open at once
+     * @param acquireTimeoutMillis longest a caller waits for a connection
+     * @param idleTimeoutMillis    idle connections above the minimum are closed after this long
+     * @param validateAfterMillis  idle connections older than this are checked before reuse
+     * @param leakThresholdMillis  connections checked out longer than this are logged as leaks, 0 to not look
+     * @param statementCacheSize   prepared statements kept per connection, 0 to keep none
+     */
+    public record Config(int minSize, int maxSize, long acquireTimeoutMillis, long idleTimeoutMillis,
+                         long validateAfterMillis, long leakThresholdMillis, int statementCacheSize) {
+        public Config {
+            if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+                throw new IllegalArgumentException("Pool sizes must satisfy 0 <= min <= max and max >= 1");
+            }
+        }
+    }
+
+    /**
+     * @param open                 connections open, idle or checked out
+     * @param idle                 connections waiting in the pool
+     * @param inUse                connections checked out
+     * @param acquires             connections handed out
+     * @param acquireTimeouts      callers that gave up waiting for a connection
+     * @param averageAcquireMicros average time spent waiting for a connection
+     * @param maxAcquireMicros     longest time spent waiting for a connection
+     * @param created              physical connections opened
+     * @param validationFailures   idle connections found broken and replaced
+     * @param leaksDetected        connections held past the leak threshold
+     * @param statementHits        prepares answered from a connection's statement cache
+     * @param statementMisses      prepares that went to the database
+     */
+    public record Stats(int open, int idle, int inUse, long acquires, long acquireTimeouts,
+                        double averageAcquireMicros, long maxAcquireMicros, long created,
+                        long validationFailures, long leaksDetected, long statementHits, long statementMisses) {}
+
+    /**
+     * A physical connection, its cached statements and when it was last returned to the pool
+     */
+    private class Pooled {
+        private final Connection connection;
+        private long idleSince = System.nanoTime();
+        // Keyed by SQL, least recently used first. Only the borrowing thread touches it
+        private final Map<String, CachedStatement> statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                if (size() <= config.statementCacheSize()) {
+                    return false;
+                }
+                eldest.getValue().evict();
+                return true;
+            }
+        };
+
+        private Pooled(Connection connection) {
+            this.connection = connection;
+        }
+    }
+
+    /**
+     * A prepared statement kept open on its connection between uses
+     */
+    private static class CachedStatement {
+        private final PreparedStatement statement;
+        private boolean inUse;
+        private boolean evicted;
+
+        private CachedStatement(PreparedStatement statement) {
+            this.statement = statement;
+        }
+
+        // A statement that isn't kept, closed as soon as its borrower is done with it
+        private static CachedStatement uncached(PreparedStatement statement) {
+            CachedStatement uncached = new CachedStatement(statement);
+            uncached.inUse = true;
+            uncached.evicted = true;
+            return uncached;
+        }
+
+        private void evict() {
+            evicted = true;
+            if (!inUse) {
+                closeQuietly(statement);
+            }
+        }
+
+        // Called when its connection is returned, a statement still open can't be handed out again
+        private boolean abandon() {
+            if (!inUse) {
+                return false;
+            }
+            evicted = true;
+            closeQuietly(statement);
+            return true;
+        }
+
+        // Called when the borrower closes its handle
+        private void release() throws SQLException {
+            inUse = false;
+            if (evicted || statement.getConnection().isClosed()) {
+                closeQuietly(statement);
+                return;
+            }
+            ResultSet resultSet = statement.getResultSet();
+            if (resultSet != null) {
+                resultSet.close();
+            }
+            statement.clearParameters();
+            statement.clearBatch();
+        }
+    }
+
+    /**
+     * One checkout of a pooled connection, closed once when the caller is done with it
+     */
+    private class Lease {
+        private final Pooled pooled;
+        private final long acquiredAt = System.nanoTime();
+        // Where the connection was taken, only looked up when leaks are being watched for
+        private final String acquiredBy = (config.leakThresholdMillis() > 0) ? callerOutsidePool() : null;
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile boolean reported;
+        // The proxy handed to the caller
+        private Connection wrapper;
+
+        private Lease(Pooled pooled) {
+            this.pooled = pooled;
+        }
+
+        private Object invoke(Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (closed.compareAndSet(false, true)) {
+                        release(this);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return closed.get() || pooled.connection.isClosed();
+                }
+                case "prepareStatement" -> {
+                    if (!closed.get() && isCacheable(method)) {
+                        int keys = (args.length == 1) ? Statement.NO_GENERATED_KEYS : (int) args[1];
+                        return prepare((String) args[0], keys);
+                    }
+                    // Still wrapped, so getConnection gives back this lease and not the physical connection
+                    return statementHandle(CachedStatement.uncached((PreparedStatement) forward(method, args)));
+                }
+                case "toString" -> {
+                    return "Pooled " + pooled.connection;
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(this);
+                }
+                case "equals" -> {
+                    return args[0] == wrapper;
+                }
+                default -> {
+                    return forward(method, args);
+                }
+            }
+        }
+
+        private Object forward(Method method, Object[] args) throws Throwable {
+            if (closed.get()) {
+                throw new SQLException("Connection is closed");
+            }
+            try {
+                return method.invoke(pooled.connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private PreparedStatement prepare(String sql, int keys) throws SQLException {
+            String key = (keys == Statement.RETURN_GENERATED_KEYS) ? "keys:" + sql : sql;
+            CachedStatement cached = pooled.statements.get(key);
+            if (cached != null && cached.inUse) {
+                // Same SQL still open on this connection, give this caller a statement of its own
+                statementMisses.increment();
+                return statementHandle(CachedStatement.uncached(pooled.connection.prepareStatement(sql, keys)));
+            }
+            if (cached == null) {
+                statementMisses.increment();
+                cached = new CachedStatement(pooled.connection.prepareStatement(sql, keys));
+                pooled.statements.put(key, cached);
+            } else {
+                statementHits.increment();
+            }
+            cached.inUse = true;
+            return statementHandle(cached);
+        }
+
+        private PreparedStatement statementHandle(CachedStatement cached) {
+            AtomicBoolean handleClosed = new AtomicBoolean();
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> switch (method.getName()) {
+                        case "close" -> {
+                            if (handleClosed.compareAndSet(false, true)) {
+                                cached.release();
+                            }
+                            yield null;
+                        }
+                        case "isClosed" -> handleClosed.get() || cached.statement.isClosed();
+                        case "getConnection" -> wrapper;
+                        case "hashCode" -> System.identityHashCode(proxy);
+                        case "equals" -> args[0] == proxy;
+                        case "toString" -> "Cached " + cached.statement;
+                        default -> {
+                            if (handleClosed.get()) {
+                                throw new SQLException("Statement is closed");
+                            }
+                            try {
+                                yield method.invoke(cached.statement, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                        }
+                    });
+        }
+    }
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final String catalog;
+    private final Config config;
+
+    private final LinkedBlockingDeque<Pooled> idle = new LinkedBlockingDeque<>();
+    private final Set<Lease> leases = ConcurrentHashMap.newKeySet();
+    private final Semaphore permits;
+    private final AtomicInteger open = new AtomicInteger();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    private final LongAdder acquires = new LongAdder();
+    private final LongAdder acquireTimeouts = new LongAdder();
+    private final LongAdder acquireNanos = new LongAdder();
+    private final AtomicLong maxAcquireNanos = new AtomicLong();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder validationFailures = new LongAdder();
+    private final LongAdder leaksDetected = new LongAdder();
+    private final LongAdder statementHits = new LongAdder();
+    private final LongAdder statementMisses = new LongAdder();
+
+    public ConnectionPool(String url, String user, String password, String catalog, Config config) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.catalog = catalog;
+        this.config = config;
+        this.permits = new Semaphore(config.maxSize(), true);
+
+        housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "db-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long shortest = (config.leakThresholdMillis() > 0)
+                ? Math.min(config.idleTimeoutMillis(), config.leakThresholdMillis())
+                : config.idleTimeoutMillis();
+        long period = Math.max(100, shortest / 2);
+        housekeeper.scheduleWithFixedDelay(this::houseKeep, 0, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Takes a connection from the pool, opening one if none are idle. Close it to give it back
+     *
+     * @throws DataAccessException if no connection frees up within the acquire timeout, or a
+     *                             new connection can't be opened
+     */
+    public Connection getConnection() throws DataAccessException {
+        if (closed) {
+            throw new DataAccessException("Connection pool is shut down");
+        }
+
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(config.acquireTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                acquireTimeouts.increment();
+                throw new DataAccessException(String.format("Timed out after %d ms waiting for a database connection",
+                        config.acquireTimeoutMillis()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessException("Interrupted waiting for a database connection");
+        }
+
+        Pooled pooled;
+        try {
+            pooled = takeIdle();
+            if (pooled == null) {
+                pooled = new Pooled(openConnection());
+            }
+        } catch (SQLException e) {
+            permits.release();
+            throw new DataAccessException(e.getMessage());
+        }
+
+        long waited = System.nanoTime() - start;
+        acquires.increment();
+        acquireNanos.add(waited);
+        maxAcquireNanos.accumulateAndGet(waited, Math::max);
+
+        Lease lease = new Lease(pooled);
+        lease.wrapper = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> lease.invoke(method, args));
+        leases.add(lease);
+        return lease.wrapper;
+    }
+
+    public Stats stats() {
+        long count = acquires.sum();
+        double averageMicros = (count == 0) ? 0 : acquireNanos.sum() / 1000.0 / count;
+        return new Stats(open.get(), idle.size(), leases.size(), count, acquireTimeouts.sum(), averageMicros,
+                maxAcquireNanos.get() / 1000, created.sum(), validationFailures.sum(), leaksDetected.sum(),
+                statementHits.sum(), statementMisses.sum());
+    }
+
+    /**
+     * Closes idle connections and stops handing out new ones. Connections still checked out
+     * are closed when they are returned
+     */
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        Pooled pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            discard(pooled);
+        }
+    }
+
+    // Most recently returned first, so the connections in use stay warm and the rest age out
+    private Pooled takeIdle() throws SQLException {
+        Pooled pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            long idleMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - pooled.idleSince);
+            if (idleMillis < config.validateAfterMillis() || pooled.connection.isValid(2)) {
+                return pooled;
+            }
+            validationFailures.increment();
+            discard(pooled);
+        }
+        return null;
+    }
+
+    private void release(Lease lease) {
+        leases.remove(lease);
+        Pooled pooled = lease.pooled;
+        try {
+            if (closed || pooled.connection.isClosed()) {
+                discard(pooled);
+            } else {
+                // Put back anything the borrower changed so the next one gets a clean connection
+                pooled.statements.values().removeIf(CachedStatement::abandon);
+                if (!pooled.connection.getAutoCommit()) {
+                    pooled.connection.rollback();
+                    pooled.connection.setAutoCommit(true);
+                }
+                if (pooled.connection.isReadOnly()) {
+                    pooled.connection.setReadOnly(false);
+                }
+                pooled.idleSince = System.nanoTime();
+                idle.offerFirst(pooled);
+            }
+        } catch (SQLException e) {
+            discard(pooled);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private Connection openConnection() throws SQLException {
+        open.incrementAndGet();
+        try {
+            Connection connection = DriverManager.getConnection(url, user, password);
+            connection.setCatalog(catalog);
+            created.increment();
+            return connection;
+        } catch (SQLException e) {
+            open.decrementAndGet();
+            throw e;
+        }
+    }
+
+    // prepareStatement(String) and prepareStatement(String, int autoGeneratedKeys) are cached, other overloads are not
+    private boolean isCacheable(Method method) {
+        Class<?>[] types = method.getParameterTypes();
+        return config.statementCacheSize() > 0
+                && (types.length == 1 || (types.length == 2 && types[1] == int.class));
+    }
+
+    private static void closeQuietly(Statement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            // The connection is going away or already gone
+        }
+    }
+
+    private void discard(Pooled pooled) {
+        open.decrementAndGet();
+        try {
+            pooled.connection.close();
+        } catch (SQLException e) {
+            // Already broken, nothing more to do with it
+        }
+    }
+
+    private void houseKeep() {
+        try {
+            closeIdle();
+            fillToMinimum();
+            reportLeaks();
+        } catch (RuntimeException e) {
+            System.out.println("Connection pool housekeeping failed: " + e);
+        }
+    }
+
+    private void closeIdle() {
+        long now = System.nanoTime();
+        for (Pooled pooled : idle) {
+            if (open.get() <= config.minSize()) {
+                return;
+            }
+            if (TimeUnit.NANOSECONDS.toMillis(now - pooled.idleSince) > config.idleTimeoutMillis()
+                    && idle.remove(pooled)) {
+                discard(pooled);
+            }
+        }
+    }
+
+    private void fillToMinimum() {
+        while (!closed && open.get() < config.minSize()) {
+            try {
+                idle.offerLast(new Pooled(openConnection()));
+            } catch (SQLException e) {
+                // The database may not be up yet, try again next time round
+                return;
+            }
+        }
+    }
+
+    private void reportLeaks() {
+        if (config.leakThresholdMillis() <= 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        for (Lease lease : leases) {
+            long heldMillis = TimeUnit.NANOSECONDS.toMillis(now - lease.acquiredAt);
+            if (!lease.reported && heldMillis > config.leakThresholdMillis()) {
+                lease.reported = true;
+                leaksDetected.increment();
+                System.out.println("Database connection held for " + heldMillis + " ms, possible leak, taken at "
+                        + lease.acquiredBy);
+            }
+        }
+    }
+
+    // The first frame outside the pool and DatabaseManager, the code that asked for the connection
+    private static String callerOutsidePool() {
+        return StackWalker.getInstance().walk(frames -> frames
+                .filter(frame -> !frame.getClassName().equals(ConnectionPool.class.getName())
+                        && !frame.getClassName().startsWith(ConnectionPool.class.getName() + "$")
+                        && !frame.getClassName().equals(DatabaseManager.class.getName()))
+                .findFirst()
+                .map(StackWalker.StackFrame::toStackTraceElement)
+                .map(String::valueOf)
+                .orElse("unknown"));
+    }
+}
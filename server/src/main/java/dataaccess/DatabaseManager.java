@@ -1,6 +1,7 @@
 package dataaccess;
 
 import java.sql.*;
+import java.util.List;
 import java.util.Properties;
 
 import static java.sql.Statement.RETURN_GENERATED_KEYS;
@@ -10,6 +11,11 @@ public class DatabaseManager {
     private static final String USER;
     private static final String PASSWORD;
     private static final String CONNECTION_URL;
+    private static final ConnectionPool.Config POOL_CONFIG;
+
+    // Created on first use and dropped by shutdown, so a restarted server gets a fresh pool.
+    // Read without a lock on every getConnection, only creating and dropping it are locked
+    private static volatile ConnectionPool pool;
 
     /*
      * Load the database information for the db.properties file.
@@ -28,7 +34,18 @@ public class DatabaseManager {
 
                 var host = props.getProperty("db.host");
                 var port = Integer.parseInt(props.getProperty("db.port"));
-                CONNECTION_URL = String.format("jdbc:mysql://%s:%d", host, port);
+                // Lets the driver send a batch of writes to the server as one request
+                var rewriteBatches = Boolean.parseBoolean(props.getProperty("db.rewriteBatchedStatements", "true"));
+                CONNECTION_URL = String.format("jdbc:mysql://%s:%d?rewriteBatchedStatements=%b", host, port, rewriteBatches);
+
+                POOL_CONFIG = new ConnectionPool.Config(
+                        Integer.parseInt(props.getProperty("db.pool.minSize", "2")),
+                        Integer.parseInt(props.getProperty("db.pool.maxSize", "10")),
+                        Long.parseLong(props.getProperty("db.pool.acquireTimeoutMillis", "5000")),
+                        Long.parseLong(props.getProperty("db.pool.idleTimeoutMillis", "300000")),
+                        Long.parseLong(props.getProperty("db.pool.validateAfterMillis", "5000")),
+                        Long.parseLong(props.getProperty("db.pool.leakThresholdMillis", "30000")),
+                        Integer.parseInt(props.getProperty("db.pool.statementCacheSize", "32")));
             }
         } catch (Exception ex) {
             throw new RuntimeException("unable to process db.properties. " + ex.getMessage());
@@ -41,8 +58,9 @@ public class DatabaseManager {
     public static void createDatabase() throws DataAccessException {
         try {
             var statement = "CREATE DATABASE IF NOT EXISTS " + DATABASE_NAME;
-            var conn = DriverManager.getConnection(CONNECTION_URL, USER, PASSWORD);
-            try (var preparedStatement = conn.prepareStatement(statement)) {
+            // Not pooled, pooled connections use the database this creates
+            try (var conn = DriverManager.getConnection(CONNECTION_URL, USER, PASSWORD);
+                 var preparedStatement = conn.prepareStatement(statement)) {
                 preparedStatement.executeUpdate();
             }
         } catch (SQLException e) {
@@ -51,10 +69,10 @@ public class DatabaseManager {
     }
 
     /**
-     * Create a connection to the database and sets the catalog based upon the
+     * Takes a connection from the pool, with the catalog set based upon the
      * properties specified in db.properties. Connections to the database should
-     * be short-lived, and you must close the connection when you are done with it.
-     * The easiest way to do that is with a try-with-resource block.
+     * be short-lived, and you must close the connection when you are done with it,
+     * which returns it to the pool. The easiest way to do that is with a try-with-resource block.
      * <br/>
      * <code>
      * try (var conn = DbInfo.getConnection(databaseName)) {
@@ -63,41 +81,73 @@ public class DatabaseManager {
      * </code>
      */
     public static Connection getConnection() throws DataAccessException {
-        try {
-            var conn = DriverManager.getConnection(CONNECTION_URL, USER, PASSWORD);
-            conn.setCatalog(DATABASE_NAME);
-            return conn;
-        } catch (SQLException e) {
-            throw new DataAccessException(e.getMessage());
+        return pool().getConnection();
+    }
+
+    private static ConnectionPool pool() {
+        ConnectionPool current = pool;
+        if (current == null) {
+            synchronized (DatabaseManager.class) {
+                current = pool;
+                if (current == null) {
+                    current = new ConnectionPool(CONNECTION_URL, USER, PASSWORD, DATABASE_NAME, POOL_CONFIG);
+                    pool = current;
+                }
+            }
         }
+        return current;
+    }
+
+    public static ConnectionPool.Stats poolStats() {
+        ConnectionPool current = pool;
+        return (current == null) ? null : current.stats();
     }
 
+    /**
+     * Closes the pooled connections. The next call to getConnection starts a new pool
+     */
+    public static synchronized void shutdown() {
+        if (pool != null) {
+            pool.close();
+            pool = null;
+        }
+    }
+
+    /**
+     * Runs one INSERT, UPDATE or DELETE
+     *
+     * @return the generated key for an INSERT, otherwise 0
+     */
     public int executeUpdate(String statement, Object... params) throws DataAccessException {
+        // Only inserts have keys to return, asking for them on anything else is wasted work
+        boolean insert = statement.stripLeading().regionMatches(true, 0, "INSERT", 0, 6);
         try (var conn = getConnection();
-             var ps = conn.prepareStatement(statement, RETURN_GENERATED_KEYS)) {
+             var ps = insert ? conn.prepareStatement(statement, RETURN_GENERATED_KEYS) : conn.prepareStatement(statement)) {
 
-            setParameters(ps, params);
+            SqlStatements.setParameters(ps, params);
 
             ps.executeUpdate();
-            return getGeneratedKey(ps);
+            return insert ? getGeneratedKey(ps) : 0;
 
         } catch (Exception e) {
             throw new DataAccessException(String.format("unable to update database: %s, %s", statement, e.getMessage()));
         }
     }
 
-    private void setParameters(PreparedStatement ps, Object... params) throws SQLException {
-        for (int i = 0; i < params.length; i++) {
-            Object param = params[i];
-
-            switch (param) {
-                case null -> ps.setNull(i + 1, Types.NULL);
-                case String s -> ps.setString(i + 1, s);
-                case Integer integer -> ps.setInt(i + 1, integer);
-                default -> {
-                }
-            }
-            // Add more type checks as needed
+    /**
+     * Runs the same statement once for each set of parameters, sent together in one batch
+     * and committed together, so either every row is written or none are
+     *
+     * @return the update count for each set of parameters
+     */
+    public int[] executeBatch(String statement, List<Object[]> rows) throws DataAccessException {
+        if (rows.isEmpty()) {
+            return new int[0];
+        }
+        try (var conn = getConnection()) {
+            return SqlStatements.executeBatch(conn, statement, rows);
+        } catch (Exception e) {
+            throw new DataAccessException(String.format("unable to update database: %s, %s", statement, e.getMessage()));
         }
     }
 
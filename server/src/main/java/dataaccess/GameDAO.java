@@ -4,6 +4,7 @@ import chess.ChessGame;
 import model.GameData;
 
 import java.util.ArrayList;
+import java.util.Collection;
 
 public interface GameDAO {
     Integer createGame(String gameName) throws DataAccessException;
@@ -11,5 +12,16 @@ public interface GameDAO {
     GameData getGame(Integer gameId) throws DataAccessException;
     ArrayList<GameData> listGames() throws DataAccessException;
     void clear() throws DataAccessException;
+
+    /**
+     * Writes the game's state. The players are left as they are stored, they only change
+     * through {@link #updateGame}, so a save made from an older copy can't undo a join
+     */
     void saveGame(GameData gameData) throws DataAccessException;
+
+    default void saveGames(Collection<GameData> games) throws DataAccessException {
+        for (GameData gameData : games) {
+            saveGame(gameData);
+        }
+    }
 }
@@ -0,0 +1,57 @@
+package dataaccess;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * Runs statements on a connection it is given, kept apart from DatabaseManager so it can
+ * be used without db.properties
+ */
+final class SqlStatements {
+
+    private SqlStatements() {
+    }
+
+    /**
+     * Runs the same statement once for each set of parameters, sent together in one batch
+     * and committed together. On failure the batch is rolled back, and either way the
+     * connection is left in auto-commit
+     *
+     * @return the update count for each set of parameters
+     */
+    static int[] executeBatch(Connection conn, String statement, List<Object[]> rows) throws SQLException {
+        conn.setAutoCommit(false);
+        try (var ps = conn.prepareStatement(statement)) {
+            for (Object[] params : rows) {
+                setParameters(ps, params);
+                ps.addBatch();
+            }
+            int[] counts = ps.executeBatch();
+            conn.commit();
+            return counts;
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    static void setParameters(PreparedStatement ps, Object... params) throws SQLException {
+        for (int i = 0; i < params.length; i++) {
+            Object param = params[i];
+
+            switch (param) {
+                case null -> ps.setNull(i + 1, Types.NULL);
+                case String s -> ps.setString(i + 1, s);
+                case Integer integer -> ps.setInt(i + 1, integer);
+                default -> {
+                }
+            }
+            // Add more type checks as needed
+        }
+    }
+}
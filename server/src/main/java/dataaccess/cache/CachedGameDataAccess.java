@@ -0,0 +1,263 @@
+package dataaccess.cache;
+
+import chess.ChessGame;
+import dataaccess.DataAccessException;
+import dataaccess.GameDAO;
+import model.GameData;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps games that are being played in memory in front of another GameDAO. Reads of a
+ * resident game never reach the database, and saved games are written behind in batches
+ * by a background thread, at most one flush interval after they were saved. Games that
+ * have not been used for a while and have nothing left to write are dropped from memory.
+ * <p>
+ * The cache is the authority for resident games, so every part of the server has to go
+ * through the same instance. {@link #close()} writes everything still waiting. Joins are
+ * written straight through and saves only carry the game, so a save made from a copy read
+ * before a join keeps the players the join set.
+ */
+public class CachedGameDataAccess implements GameDAO {
+
+    /**
+     * @param hits          reads answered from memory
+     * @param misses        reads that went to the database
+     * @param resident      games held in memory
+     * @param dirty         saved games not yet written
+     * @param flushes       batches written
+     * @param gamesWritten  games written across all batches
+     * @param failedFlushes batches that failed and were left to retry
+     */
+    public record Stats(long hits, long misses, int resident, int dirty, long flushes, long gamesWritten,
+                        long failedFlushes) {}
+
+    // Carries a failed read out of computeIfAbsent
+    private static class LoadFailure extends RuntimeException {
+        private final DataAccessException failure;
+
+        private LoadFailure(DataAccessException cause) {
+            super(cause);
+            this.failure = cause;
+        }
+    }
+
+    private static class Entry {
+        private final GameData gameData;
+        private volatile long lastUsed = System.nanoTime();
+
+        private Entry(GameData gameData) {
+            this.gameData = gameData;
+        }
+    }
+
+    private final GameDAO delegate;
+    private final int maxBatchSize;
+    private final long idleNanos;
+
+    // The games handed to callers, who save a changed copy rather than changing them
+    private final ConcurrentHashMap<Integer, Entry> resident = new ConcurrentHashMap<>();
+    // Copies of saved games waiting to be written, taken at save time so a flush never sees half a move.
+    // A game is resident for as long as it is dirty, and both are changed together inside resident.compute
+    private final ConcurrentHashMap<Integer, GameData> dirty = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService flusher;
+    private volatile boolean closed;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder gamesWritten = new LongAdder();
+    private final LongAdder failedFlushes = new LongAdder();
+
+    /**
+     * @param delegate            where games are stored
+     * @param flushIntervalMillis longest a saved game waits before it is written
+     * @param maxBatchSize        most games written in one batch, reaching it starts a flush early
+     * @param idleMillis          how long an unused game stays in memory
+     */
+    public CachedGameDataAccess(GameDAO delegate, long flushIntervalMillis, int maxBatchSize, long idleMillis) {
+        this.delegate = delegate;
+        this.maxBatchSize = maxBatchSize;
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMillis);
+
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "game-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    public Integer createGame(String gameName) throws DataAccessException {
+        return delegate.createGame(gameName);
+    }
+
+    public GameData getGame(Integer gameId) throws DataAccessException {
+        Entry entry = resident.get(gameId);
+        if (entry != null) {
+            hits.increment();
+            entry.lastUsed = System.nanoTime();
+            return entry.gameData;
+        }
+
+        // Loaded inside computeIfAbsent so a join can't land between the read and the entry
+        // going in, updateGame waits for the entry and then patches it
+        misses.increment();
+        try {
+            entry = resident.computeIfAbsent(gameId, this::load);
+        } catch (LoadFailure e) {
+            throw e.failure;
+        }
+        return (entry == null) ? null : entry.gameData;
+    }
+
+    private Entry load(Integer gameId) {
+        GameData gameData = dirty.get(gameId);
+        if (gameData == null) {
+            try {
+                gameData = delegate.getGame(gameId);
+            } catch (DataAccessException e) {
+                throw new LoadFailure(e);
+            }
+        }
+        return (gameData == null) ? null : new Entry(gameData);
+    }
+
+    public void updateGame(Integer gameId, ChessGame.TeamColor teamColor, String userName) throws DataAccessException {
+        // Joining is rare and comes over HTTP, so it is written straight through
+        delegate.updateGame(gameId, teamColor, userName);
+        resident.computeIfPresent(gameId, (id, entry) -> {
+            dirty.computeIfPresent(id, (key, gameData) -> withPlayer(gameData, teamColor, userName));
+            return new Entry(withPlayer(entry.gameData, teamColor, userName));
+        });
+    }
+
+    public ArrayList<GameData> listGames() throws DataAccessException {
+        ArrayList<GameData> games = delegate.listGames();
+        if (!dirty.isEmpty()) {
+            games.replaceAll(gameData -> {
+                GameData saved = dirty.get(gameData.gameID());
+                return (saved == null) ? gameData : gameData.withGame(saved.game());
+            });
+        }
+        return games;
+    }
+
+    public synchronized void clear() throws DataAccessException {
+        dirty.clear();
+        resident.clear();
+        delegate.clear();
+    }
+
+    public void saveGame(GameData gameData) throws DataAccessException {
+        if (closed) {
+            delegate.saveGame(gameData);
+            return;
+        }
+
+        // Keep the players already here, the caller's copy may have been read before a join
+        resident.compute(gameData.gameID(), (id, entry) -> {
+            GameData saved = (entry == null) ? gameData : entry.gameData.withGame(gameData.game());
+            dirty.put(id, snapshot(saved));
+            return new Entry(saved);
+        });
+        if (dirty.size() >= maxBatchSize) {
+            try {
+                flusher.execute(this::flushQuietly);
+            } catch (RejectedExecutionException e) {
+                // Closing, the final flush picks it up
+            }
+        }
+    }
+
+    /**
+     * Writes every saved game that is still waiting, then drops games that have been idle
+     *
+     * @throws DataAccessException if a batch could not be written, its games stay waiting
+     */
+    public synchronized void flush() throws DataAccessException {
+        List<GameData> batch = new ArrayList<>(Math.min(dirty.size(), maxBatchSize));
+        for (GameData gameData : dirty.values()) {
+            batch.add(gameData);
+            if (batch.size() == maxBatchSize) {
+                write(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+        evictIdle();
+    }
+
+    /**
+     * Stops the background flushes and writes whatever is still waiting. Later saves go
+     * straight to the database
+     */
+    public void close() throws DataAccessException {
+        closed = true;
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), resident.size(), dirty.size(), flushes.sum(), gamesWritten.sum(),
+                failedFlushes.sum());
+    }
+
+    private void write(List<GameData> batch) throws DataAccessException {
+        try {
+            delegate.saveGames(batch);
+        } catch (DataAccessException e) {
+            failedFlushes.increment();
+            throw e;
+        }
+        flushes.increment();
+        gamesWritten.add(batch.size());
+        for (GameData gameData : batch) {
+            // A newer save made during the write stays waiting
+            dirty.remove(gameData.gameID(), gameData);
+        }
+    }
+
+    private void evictIdle() {
+        long now = System.nanoTime();
+        for (Integer gameId : resident.keySet()) {
+            // Checked inside compute so a game saved meanwhile stays resident
+            resident.computeIfPresent(gameId, (id, entry) ->
+                    (now - entry.lastUsed > idleNanos && !dirty.containsKey(id)) ? null : entry);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (DataAccessException e) {
+            System.out.println("Unable to write games, will retry: " + e.getMessage());
+        }
+    }
+
+    private static GameData snapshot(GameData gameData) {
+        return gameData.withGame((gameData.game() == null) ? null : new ChessGame(gameData.game()));
+    }
+
+    private static GameData withPlayer(GameData gameData, ChessGame.TeamColor teamColor, String userName) {
+        return (teamColor == ChessGame.TeamColor.BLACK)
+                ? new GameData(gameData.gameID(), gameData.whiteUsername(), userName, gameData.gameName(), gameData.game())
+                : new GameData(gameData.gameID(), userName, gameData.blackUsername(), gameData.gameName(), gameData.game());
+    }
+}
@@ -27,8 +27,7 @@ public class GameMemoryDataAccess implements GameDAO {
     }
 
     public void saveGame(GameData game) {
-        GameData gameData = getGame(game.gameID());
-        games.replace(game.gameID(), gameData, game);
+        games.computeIfPresent(game.gameID(), (id, gameData) -> gameData.withGame(game.game()));
     }
 
     public GameData getGame(Integer gameId){
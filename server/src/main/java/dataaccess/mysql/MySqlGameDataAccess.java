@@ -1,16 +1,20 @@
 package dataaccess.mysql;
 
 import chess.ChessGame;
-import com.google.gson.Gson;
 import dataaccess.DataAccessException;
 import dataaccess.DatabaseManager;
 import dataaccess.GameDAO;
+import json.JsonCodec;
 import model.GameData;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.sql.*;
 
 public class MySqlGameDataAccess implements GameDAO {
+    private static final String SAVE_GAME = "UPDATE games SET game = ? WHERE gameId = ?";
+
     private final DatabaseManager databaseManager;
 
     public MySqlGameDataAccess(DatabaseManager databaseManager) throws DataAccessException {
@@ -20,7 +24,7 @@ public class MySqlGameDataAccess implements GameDAO {
 
     public Integer createGame(String gameName) throws DataAccessException {
         var statement = "INSERT INTO games (gameName, game) VALUES (?, ?)";
-        var json = new Gson().toJson(new ChessGame());
+        var json = JsonCodec.toJson(new ChessGame());
         return databaseManager.executeUpdate(statement, gameName, json);
     }
 
@@ -64,9 +68,20 @@ public class MySqlGameDataAccess implements GameDAO {
     }
 
     public void saveGame(GameData gameData) throws DataAccessException {
-        var statement = "UPDATE games SET blackUsername = ?, whiteUsername = ?, game = ? WHERE gameId = ?";
-        var json = new Gson().toJson(gameData.game());
-        databaseManager.executeUpdate(statement, gameData.blackUsername(), gameData.whiteUsername(), json, gameData.gameID());
+        databaseManager.executeUpdate(SAVE_GAME, saveParameters(gameData));
+    }
+
+    public void saveGames(Collection<GameData> games) throws DataAccessException {
+        List<Object[]> rows = new ArrayList<>(games.size());
+        for (GameData gameData : games) {
+            rows.add(saveParameters(gameData));
+        }
+        databaseManager.executeBatch(SAVE_GAME, rows);
+    }
+
+    private static Object[] saveParameters(GameData gameData) {
+        var json = JsonCodec.toJson(gameData.game());
+        return new Object[]{json, gameData.gameID()};
     }
 
     public void clear() throws DataAccessException {
@@ -79,7 +94,7 @@ public class MySqlGameDataAccess implements GameDAO {
         var gameName = rs.getString("gameName");
         var whiteUsername = rs.getString("whiteUsername");
         var blackUsername = rs.getString("blackUsername");
-        var game = new Gson().fromJson(rs.getString("game"), ChessGame.class);
+        var game = JsonCodec.fromJson(rs.getString("game"), ChessGame.class);
         return new GameData(gameId, whiteUsername, blackUsername, gameName, game);
     }
 }
@@ -1,7 +1,7 @@
 package server;
 
-import com.google.gson.Gson;
 import dataaccess.DataAccessException;
+import json.JsonCodec;
 import model.create.CreateRequest;
 import model.create.CreateResult;
 import model.join.JoinRequest;
@@ -18,8 +18,6 @@ public class GameHandler {
         this.gameService = gameService;
     }
 
-    private static final Gson SERIALIZER = new Gson(); // Gson instance
-
     public String listGames(Request req, Response res) throws ResponseException, DataAccessException {
         res.type("application/json");
 
@@ -30,7 +28,7 @@ public class GameHandler {
         ListResult listResult = gameService.gameList(authToken);
 
         res.status(200);
-        return SERIALIZER.toJson(listResult);
+        return JsonCodec.toJson(listResult);
     }
 
     public String createGame(Request req, Response res) throws ResponseException, DataAccessException {
@@ -38,13 +36,13 @@ public class GameHandler {
         String authToken = req.headers("Authorization");
 
         // translate
-        CreateRequest createRequest = SERIALIZER.fromJson(req.body(), CreateRequest.class);
+        CreateRequest createRequest = JsonCodec.fromJson(req.body(), CreateRequest.class);
 
         // create game
         CreateResult createResult = gameService.createGame(authToken, createRequest);
 
         res.status(200);
-        return SERIALIZER.toJson(createResult);
+        return JsonCodec.toJson(createResult);
     }
 
     public String joinGame(Request req, Response res) throws ResponseException, DataAccessException {
@@ -52,7 +50,7 @@ public class GameHandler {
         String authToken = req.headers("Authorization");
 
         // translate
-        JoinRequest joinRequest = SERIALIZER.fromJson(req.body(), JoinRequest.class);
+        JoinRequest joinRequest = JsonCodec.fromJson(req.body(), JoinRequest.class);
 
         // join game
         gameService.joinGame(authToken, joinRequest);
@@ -0,0 +1,46 @@
+package server;
+
+import dataaccess.DataAccessException;
+import exception.ResponseException;
+import json.JsonCodec;
+import service.AuthService;
+import spark.Request;
+import spark.Response;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+public class MetricsHandler {
+    private final Map<String, Supplier<Object>> sources = new LinkedHashMap<>();
+    private final AuthService authService;
+
+    public MetricsHandler(AuthService authService) {
+        this.authService = authService;
+    }
+
+    /**
+     * Adds a source of counters, read every time the metrics are requested
+     *
+     * @param name  the key the counters are listed under
+     * @param stats supplies a snapshot of the counters
+     */
+    public void register(String name, Supplier<Object> stats) {
+        sources.put(name, stats);
+    }
+
+    public String getMetrics(Request req, Response res) throws ResponseException, DataAccessException {
+        res.type("application/json");
+
+        // Same check as the game routes, the counters are not for anyone without a session
+        authService.getAuthData(req.headers("Authorization"));
+
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        for (Map.Entry<String, Supplier<Object>> source : sources.entrySet()) {
+            metrics.put(source.getKey(), source.getValue().get());
+        }
+
+        res.status(200);
+        return JsonCodec.toJson(metrics);
+    }
+}
@@ -1,6 +1,10 @@
 package server;
 
+import chess.Bitboards;
+import chess.ChessGame;
+import chess.PositionCache;
 import dataaccess.*;
+import dataaccess.cache.CachedGameDataAccess;
 import dataaccess.mysql.MySqlAuthDataAccess;
 import dataaccess.mysql.MySqlGameDataAccess;
 import dataaccess.mysql.MySqlUserDataAccess;
@@ -11,12 +15,26 @@ import service.UserService;
 import service.WebSocketService;
 import spark.*;
 import exception.ResponseException;
+import json.JsonCodec;
 
 public class Server {
 
+    // Positions whose legal moves and status are shared between all games
+    private static final int POSITION_CACHE_SIZE = 16_384;
+    // Longest a move can wait in memory before it is written to the database
+    private static final long GAME_FLUSH_INTERVAL_MILLIS = 250;
+    private static final int GAME_FLUSH_BATCH_SIZE = 64;
+    // Games nobody has touched for this long are dropped from memory once written
+    private static final long GAME_IDLE_MILLIS = 10 * 60 * 1000;
+
+    private WebSocketHandler webSocketHandler;
+    private CachedGameDataAccess gameCache;
+
     public int run(int desiredPort) {
         Spark.port(desiredPort);
 
+        ChessGame.setPositionCache(new PositionCache(POSITION_CACHE_SIZE));
+
         Spark.staticFiles.location("web");
 
         DatabaseManager databaseManager = new DatabaseManager();
@@ -25,7 +43,9 @@ public class Server {
         AuthDAO authDAO;
         try {
             userDAO = new MySqlUserDataAccess(databaseManager);
-            gameDAO = new MySqlGameDataAccess(databaseManager);
+            gameCache = new CachedGameDataAccess(new MySqlGameDataAccess(databaseManager), GAME_FLUSH_INTERVAL_MILLIS,
+                    GAME_FLUSH_BATCH_SIZE, GAME_IDLE_MILLIS);
+            gameDAO = gameCache;
             authDAO = new MySqlAuthDataAccess(databaseManager);
         } catch (Exception e) {
             throw new RuntimeException(e);
@@ -37,7 +57,7 @@ public class Server {
 
         // Web socket
         WebSocketService webSocketService = new WebSocketService(authDAO, gameDAO);
-        WebSocketHandler webSocketHandler = new WebSocketHandler(webSocketService);
+        webSocketHandler = new WebSocketHandler(webSocketService);
         Spark.webSocket("/ws", webSocketHandler);
 
 
@@ -53,6 +73,16 @@ public class Server {
         Spark.post("/game", gameHandler::createGame);
         Spark.put("/game", gameHandler::joinGame);
 
+        MetricsHandler metricsHandler = new MetricsHandler(authService);
+        metricsHandler.register("json", JsonCodec::stats);
+        metricsHandler.register("positionCache", ChessGame.getPositionCache()::stats);
+        metricsHandler.register("magicTables", Bitboards::tableStats);
+        metricsHandler.register("broadcast", webSocketHandler::connectionStats);
+        metricsHandler.register("gameCommands", webSocketHandler::commandStats);
+        metricsHandler.register("gameCache", gameCache::stats);
+        metricsHandler.register("databasePool", DatabaseManager::poolStats);
+        Spark.get("/metrics", metricsHandler::getMetrics);
+
         Spark.exception(ResponseException.class, this::exceptionHandler);
 
         //This line initializes the server and can be removed once you have a functioning endpoint 
@@ -65,6 +95,18 @@ public class Server {
     public void stop() {
         Spark.stop();
         Spark.awaitStop();
+        if (webSocketHandler != null) {
+            webSocketHandler.shutdown();
+        }
+        if (gameCache != null) {
+            try {
+                gameCache.close();
+            } catch (DataAccessException e) {
+                System.out.println("Unable to write games on shutdown: " + e.getMessage());
+            }
+        }
+        DatabaseManager.shutdown();
+        ChessGame.setPositionCache(null);
     }
 
     private void exceptionHandler(ResponseException ex, Request req, Response res) {
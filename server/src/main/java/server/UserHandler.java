@@ -1,7 +1,7 @@
 package server;
 
-import com.google.gson.Gson;
 import dataaccess.DataAccessException;
+import json.JsonCodec;
 import service.AuthService;
 import model.login.LoginRequest;
 import model.login.LoginResult;
@@ -21,19 +21,17 @@ public class UserHandler {
         this.authService = authService;
     }
 
-    private static final Gson SERIALIZER = new Gson(); // Gson instance
-
     public String registerUser(Request req, Response res) throws ResponseException, DataAccessException {
         res.type("application/json");
 
         // translate
-        RegisterRequest registerRequest = SERIALIZER.fromJson(req.body(), RegisterRequest.class);
+        RegisterRequest registerRequest = JsonCodec.fromJson(req.body(), RegisterRequest.class);
         // get result from service
         RegisterResult registerResult = userService.register(registerRequest);
 
         // Return success response
         res.status(200);
-        return SERIALIZER.toJson(registerResult);
+        return JsonCodec.toJson(registerResult);
     }
 
     public String clearDatabase(Request req, Response res) throws DataAccessException {
@@ -51,14 +49,14 @@ public class UserHandler {
         res.type("application/json");
 
         // translate
-        LoginRequest loginRequest = SERIALIZER.fromJson(req.body(), LoginRequest.class);
+        LoginRequest loginRequest = JsonCodec.fromJson(req.body(), LoginRequest.class);
 
         // login
         LoginResult loginResult = userService.login(loginRequest);
 
         // success
         res.status(200);
-        return SERIALIZER.toJson(loginResult);
+        return JsonCodec.toJson(loginResult);
     }
 
     public String logoutUser(Request req, Response res) throws ResponseException, DataAccessException {
@@ -7,10 +7,16 @@ import java.io.IOException;
 public class Connection {
     public String authToken;
     public Session session;
+    public boolean moveUpdates;
 
     public Connection(String authToken, Session session) {
+        this(authToken, session, false);
+    }
+
+    public Connection(String authToken, Session session, boolean moveUpdates) {
         this.authToken = authToken;
         this.session = session;
+        this.moveUpdates = moveUpdates;
     }
 
     public void send(String msg) throws IOException {
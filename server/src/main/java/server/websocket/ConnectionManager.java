@@ -1,18 +1,38 @@
 package server.websocket;
 
-import com.google.gson.Gson;
+import json.JsonCodec;
 import org.eclipse.jetty.websocket.api.Session;
 import websocket.messages.ServerMessage;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
 
 public class ConnectionManager {
     public final ConcurrentHashMap<Integer, ConcurrentHashMap<String, Connection>> connections = new ConcurrentHashMap<>();
 
+    private final LongAdder broadcasts = new LongAdder();
+    private final LongAdder messagesSent = new LongAdder();
+    private final LongAdder bytesSent = new LongAdder();
+
+    /**
+     * @param broadcasts   number of messages encoded for sending
+     * @param messagesSent number of times an encoded message was sent to a connection
+     * @param bytesSent    UTF-8 bytes of all the messages sent, counted once per connection
+     */
+    public record Stats(long broadcasts, long messagesSent, long bytesSent) {}
+
+    private record Encoded(String json, long bytes) {}
+
     public void add(Integer gameId, String authToken, Session session) {
-        var connection = new Connection(authToken, session);
+        add(gameId, authToken, session, false);
+    }
+
+    public void add(Integer gameId, String authToken, Session session, boolean moveUpdates) {
+        var connection = new Connection(authToken, session, moveUpdates);
         connections.computeIfAbsent(gameId, k -> new ConcurrentHashMap<>())
                 .put(authToken, connection);
     }
@@ -22,30 +42,51 @@ public class ConnectionManager {
     }
 
     public void broadcastAndExcludeOne(Integer gameId, String excludeAuthToken, ServerMessage message) throws IOException {
-        var removeList = new ArrayList<Connection>();
-        for (var c : connections.get(gameId).values()) {
-            if (c.session.isOpen()) {
-                if (!c.authToken.equals(excludeAuthToken)) {
-                    c.send(new Gson().toJson(message));
-                }
-            } else {
-                removeList.add(c);
-            }
-        }
-
-        // Clean up any connections that were left open.
-        for (var c : removeList) {
-            connections.get(gameId).remove(c.authToken);
-        }
+        broadcast(gameId, c -> c.authToken.equals(excludeAuthToken) ? null : message);
     }
 
     public void broadcastToOne(Integer gameId, String authToken, ServerMessage message) throws IOException {
+        broadcast(gameId, c -> c.authToken.equals(authToken) ? message : null);
+    }
+
+    public void broadcastToAll(Integer gameId, ServerMessage message) throws IOException {
+        broadcast(gameId, c -> message);
+    }
+
+    /**
+     * Sends the result of a move, connections that asked for move updates get the
+     * MOVE_APPLIED message and every other connection gets the full LOAD_GAME
+     */
+    public void broadcastMove(Integer gameId, ServerMessage loadGame, ServerMessage moveApplied) throws IOException {
+        broadcast(gameId, c -> c.moveUpdates ? moveApplied : loadGame);
+    }
+
+    public Stats stats() {
+        return new Stats(broadcasts.sum(), messagesSent.sum(), bytesSent.sum());
+    }
+
+    /**
+     * Sends every open connection of a game the message picked for it, or nothing if the
+     * pick is null. Each message is encoded once and the same string goes to every
+     * connection it was picked for
+     */
+    private void broadcast(Integer gameId, Function<Connection, ServerMessage> messageFor) throws IOException {
+        var encodings = new IdentityHashMap<ServerMessage, Encoded>(2);
         var removeList = new ArrayList<Connection>();
         for (var c : connections.get(gameId).values()) {
             if (c.session.isOpen()) {
-                if (c.authToken.equals(authToken)) {
-                    System.out.println(message.toString());
-                    c.send(new Gson().toJson(message));
+                ServerMessage message = messageFor.apply(c);
+                if (message != null) {
+                    Encoded encoded = encodings.get(message);
+                    if (encoded == null) {
+                        String json = JsonCodec.toJson(message);
+                        encoded = new Encoded(json, utf8Length(json));
+                        encodings.put(message, encoded);
+                        broadcasts.increment();
+                    }
+                    c.send(encoded.json());
+                    messagesSent.increment();
+                    bytesSent.add(encoded.bytes());
                 }
             } else {
                 removeList.add(c);
@@ -58,19 +99,21 @@ public class ConnectionManager {
         }
     }
 
-    public void broadcastToAll(Integer gameId, ServerMessage message) throws IOException {
-        var removeList = new ArrayList<Connection>();
-        for (var c : connections.get(gameId).values()) {
-            if (c.session.isOpen()) {
-                c.send(new Gson().toJson(message));
+    private static long utf8Length(String text) {
+        long length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                length += 4;
+                i++;
             } else {
-                removeList.add(c);
+                length += 3;
             }
         }
-
-        // Clean up any connections that were left open.
-        for (var c : removeList) {
-            connections.get(gameId).remove(c.authToken);
-        }
+        return length;
     }
 }
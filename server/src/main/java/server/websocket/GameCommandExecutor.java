@@ -0,0 +1,156 @@
+package server.websocket;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs the commands for each game one at a time, in the order they were submitted. Each
+ * game has its own mailbox, drained by a virtual thread while it has work, so games
+ * never wait on each other and a slow database call only holds up its own game. A
+ * mailbox is removed once it drains empty, so only games with work waiting take up room.
+ */
+public class GameCommandExecutor {
+
+    /**
+     * @param submitted     commands submitted across all games
+     * @param completed     commands that have finished running
+     * @param failed        commands that threw
+     * @param rejected      commands dropped because the executor had shut down
+     * @param queued        commands waiting to run right now
+     * @param maxQueueDepth deepest any one game's mailbox has been
+     * @param queueDepths   commands waiting to run for each game that has any
+     */
+    public record Stats(long submitted, long completed, long failed, long rejected, long queued, int maxQueueDepth,
+                        Map<Integer, Integer> queueDepths) {}
+
+    /**
+     * The commands waiting for one game. Only one thread drains a mailbox at a time,
+     * the one that flipped draining from false to true
+     */
+    private static class Mailbox {
+        private final Queue<Runnable> commands = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger depth = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+    }
+
+    final ConcurrentHashMap<Integer, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private volatile boolean closed;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+
+    /**
+     * Queues a command for a game, it runs after every command already queued for that game
+     *
+     * @param gameId  the game the command is for
+     * @param command the command to run
+     * @return false if the executor has shut down and the command will not run
+     */
+    public boolean submit(int gameId, Runnable command) {
+        if (closed) {
+            rejected.increment();
+            return false;
+        }
+
+        // Adding inside compute means a mailbox being removed as it drains empty can't
+        // take this command with it
+        Mailbox mailbox = mailboxes.compute(gameId, (id, existing) -> {
+            Mailbox box = (existing == null) ? new Mailbox() : existing;
+            box.commands.add(command);
+            maxQueueDepth.accumulateAndGet(box.depth.incrementAndGet(), Math::max);
+            return box;
+        });
+        submitted.increment();
+
+        if (mailbox.draining.compareAndSet(false, true)) {
+            try {
+                executor.execute(() -> drain(gameId, mailbox));
+            } catch (RejectedExecutionException e) {
+                // Shut down between the check above and here, nothing will drain the mailbox
+                discard(gameId, mailbox);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void drain(int gameId, Mailbox mailbox) {
+        while (true) {
+            Runnable command;
+            while ((command = mailbox.commands.poll()) != null) {
+                try {
+                    command.run();
+                } catch (RuntimeException e) {
+                    failed.increment();
+                    System.out.println("Command for game " + gameId + " failed: " + e);
+                } finally {
+                    mailbox.depth.decrementAndGet();
+                    completed.increment();
+                }
+            }
+
+            // A command added after the last poll but before draining was cleared would be
+            // left behind, so look again and take the mailbox back if one was
+            mailbox.draining.set(false);
+            if (mailbox.commands.isEmpty() || !mailbox.draining.compareAndSet(false, true)) {
+                removeIfIdle(gameId, mailbox);
+                return;
+            }
+        }
+    }
+
+    private void discard(int gameId, Mailbox mailbox) {
+        while (mailbox.commands.poll() != null) {
+            mailbox.depth.decrementAndGet();
+            rejected.increment();
+        }
+        mailbox.draining.set(false);
+        removeIfIdle(gameId, mailbox);
+    }
+
+    private void removeIfIdle(int gameId, Mailbox mailbox) {
+        mailboxes.computeIfPresent(gameId, (id, existing) ->
+                (existing == mailbox && existing.commands.isEmpty() && !existing.draining.get()) ? null : existing);
+    }
+
+    public Stats stats() {
+        Map<Integer, Integer> queueDepths = new LinkedHashMap<>();
+        long queued = 0;
+        for (Map.Entry<Integer, Mailbox> entry : mailboxes.entrySet()) {
+            int depth = entry.getValue().depth.get();
+            if (depth > 0) {
+                queueDepths.put(entry.getKey(), depth);
+                queued += depth;
+            }
+        }
+        return new Stats(submitted.sum(), completed.sum(), failed.sum(), rejected.sum(), queued, maxQueueDepth.get(),
+                queueDepths);
+    }
+
+    /**
+     * Stops taking commands and waits a short time for the queued ones to finish
+     */
+    public void shutdown() {
+        closed = true;
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
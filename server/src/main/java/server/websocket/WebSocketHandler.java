@@ -4,8 +4,8 @@ import chess.ChessGame;
 import chess.ChessMove;
 import chess.ChessPiece;
 import chess.ChessPosition;
-import com.google.gson.Gson;
 import exception.ResponseException;
+import json.JsonCodec;
 import model.GameData;
 import org.eclipse.jetty.websocket.api.Session;
 import org.eclipse.jetty.websocket.api.annotations.OnWebSocketMessage;
@@ -24,31 +24,59 @@ public class WebSocketHandler {
     private final ConnectionManager connections = new ConnectionManager();
     private final WebSocketService webSocketService;
 
+    // Each game's commands run one at a time off the Jetty threads, so moves can't race on the same game
+    private final GameCommandExecutor commands = new GameCommandExecutor();
+
     public WebSocketHandler(WebSocketService service) { webSocketService = service; }
 
+    public ConnectionManager.Stats connectionStats() { return connections.stats(); }
+
+    public GameCommandExecutor.Stats commandStats() { return commands.stats(); }
+
+    public void shutdown() { commands.shutdown(); }
+
     @OnWebSocketMessage
     public void onMessage(Session session, String message) throws IOException {
-        UserGameCommand command = new Gson().fromJson(message, UserGameCommand.class);
+        UserGameCommand command = JsonCodec.fromJson(message, UserGameCommand.class);
+        if (command.getGameID() == null) {
+            sendError(session, new ServerMessage(ServerMessage.ServerMessageType.ERROR, null, "Error: no game ID", null));
+            return;
+        }
+        boolean queued = commands.submit(command.getGameID(), () -> {
+            try {
+                handle(command, session);
+            } catch (IOException e) {
+                // The session closed before a reply could be sent, nothing left to tell it
+                System.out.println("Websocket send failed: " + e.getMessage());
+            }
+        });
+        if (!queued) {
+            sendError(session, new ServerMessage(ServerMessage.ServerMessageType.ERROR, null, "Error: server is shutting down", null));
+        }
+    }
+
+    private void handle(UserGameCommand command, Session session) throws IOException {
         switch (command.getCommandType()) {
-            case CONNECT -> connect(command.getAuthToken(), command.getGameID(), session);
+            case CONNECT -> connect(command.getAuthToken(), command.getGameID(), command.wantsMoveUpdates(), session);
             case MAKE_MOVE -> makeMove(command.getAuthToken(), command.getGameID(), command.getMove(), session);
             case RESIGN -> resign(command.getAuthToken(), command.getGameID(), session);
             case LEAVE -> leave(command.getAuthToken(), command.getGameID());
+            case SYNC -> sync(command.getAuthToken(), command.getGameID(), session);
         }
     }
 
-    private void connect(String authToken, int gameId, Session session) throws IOException {
+    private void connect(String authToken, int gameId, boolean moveUpdates, Session session) throws IOException {
         try {
             // Get user's name from auth Token
             String userName = webSocketService.getAuthData(authToken).username();
 
             // Add auth token to connections to Web socket
-            connections.add(gameId, authToken, session);
+            connections.add(gameId, authToken, session, moveUpdates);
 
             // Get game and load send a load_game notification to new connection's client
             GameData gameData = webSocketService.getGameData(gameId);
             ServerMessage serverMessageNotification;
-            serverMessageNotification = new ServerMessage(ServerMessage.ServerMessageType.LOAD_GAME, gameData, null, null);
+            serverMessageNotification = ServerMessage.loadGame(gameData, gameData.game().getMovesPlayed());
             connections.broadcastToOne(gameId, authToken, serverMessageNotification);
 
             if (connections.connections.size() == 1) { return; }
@@ -105,44 +133,65 @@ public class WebSocketHandler {
                 throw new Exception("Invalid move, not player's turn");
             }
 
-            // Get the game and make the move, this will check for the right team's turn and valid moves
-            ChessGame game = gameData.game();
+            // Make the move on a copy, this will check for the right team's turn and valid moves. The
+            // cached game is only replaced once the save goes through, so a failed move or save leaves it alone
+            ChessGame game = new ChessGame(gameData.game());
             game.makeMove(move);
 
+            // Check for complete game, the opponent is the team to move now
+            ChessGame.GameStatus status = game.evaluateStatus();
+            if (status.checkmate() || status.stalemate()) {
+                game.setGameOver();
+            }
+
+            // Save the new game after the move
+            GameData movedGameData = gameData.withGame(game);
+            webSocketService.saveGameData(movedGameData);
+
             // Send notification to those connected through web socket
             var message = String.format("Team %s, %s, moved from %s to %s", teamColor, userName,
                     getCoordinateFromPosition(move.getStartPosition()), getCoordinateFromPosition(move.getEndPosition()));
             var serverMessageNotification = new ServerMessage(ServerMessage.ServerMessageType.NOTIFICATION, null, null, message);
             connections.broadcastAndExcludeOne(gameId, authToken, serverMessageNotification);
 
-            // Check for complete game
-            if (game.isInCheck(opponentTeamColor)) {
-                var checkMessage = String.format("Team %s is in check", opponentTeamColor);
-                var checkServerMessageNotification = new ServerMessage(ServerMessage.ServerMessageType.NOTIFICATION,
-                        null, null, checkMessage);
-                connections.broadcastToAll(gameId, checkServerMessageNotification);
-            }
-            else if (game.isInCheckmate(teamColor)) {
+            if (status.checkmate()) {
                 var checkMateMessage = String.format("Team %s is in check mate! %s wins!", opponentTeamColor, teamColor);
                 var checkMateServerMessageNotification = new ServerMessage(ServerMessage.ServerMessageType.NOTIFICATION,
                         null, null, checkMateMessage);
-                game.setGameOver();
                 connections.broadcastToAll(gameId, checkMateServerMessageNotification);
             }
-            else if (game.isInStalemate(opponentTeamColor)) {
+            else if (status.stalemate()) {
                 var staleMateMessage = "It is a stalemate :(";
                 var staleMateServerMessageNotification = new ServerMessage(ServerMessage.ServerMessageType.NOTIFICATION,
                         null, null, staleMateMessage);
-                game.setGameOver();
                 connections.broadcastToAll(gameId, staleMateServerMessageNotification);
             }
+            else if (status.check()) {
+                var checkMessage = String.format("Team %s is in check", opponentTeamColor);
+                var checkServerMessageNotification = new ServerMessage(ServerMessage.ServerMessageType.NOTIFICATION,
+                        null, null, checkMessage);
+                connections.broadcastToAll(gameId, checkServerMessageNotification);
+            }
 
-            // Save the new game after the move
-            webSocketService.saveGameData(gameData);
+            // Update the game for everyone, clients that keep their own copy only get the move
+            // The game's saved move count, so it carries on from where it was after a restart
+            long sequence = game.getMovesPlayed();
+            var serverMessageLoadGame = ServerMessage.loadGame(movedGameData, sequence);
+            var serverMessageMoveApplied = ServerMessage.moveApplied(move, sequence, status);
+            connections.broadcastMove(gameId, serverMessageLoadGame, serverMessageMoveApplied);
+        }
+        catch (Exception e) {
+            var serverMessageNotification = new ServerMessage(ServerMessage.ServerMessageType.ERROR, null, e.getMessage(), null);
+            sendError(session, serverMessageNotification);
+        }
+    }
 
-            // Update the game for everyone
-            var serverMessageLoadGame = new ServerMessage(ServerMessage.ServerMessageType.LOAD_GAME, gameData, null, null);
-            connections.broadcastToAll(gameId, serverMessageLoadGame);
+    private void sync(String authToken, int gameId, Session session) throws IOException {
+        try {
+            // Make sure the user is signed in, then send the whole game to them alone
+            webSocketService.getAuthData(authToken);
+            GameData gameData = webSocketService.getGameData(gameId);
+            connections.broadcastToOne(gameId, authToken, ServerMessage.loadGame(gameData, gameData.game().getMovesPlayed()));
         }
         catch (Exception e) {
             var serverMessageNotification = new ServerMessage(ServerMessage.ServerMessageType.ERROR, null, e.getMessage(), null);
@@ -151,7 +200,7 @@ public class WebSocketHandler {
     }
 
     private void sendError(Session session, ServerMessage serverMessageNotification) throws IOException {
-        var json = new Gson().toJson(serverMessageNotification);
+        var json = JsonCodec.toJson(serverMessageNotification);
         session.getRemote().sendString(json);
     }
 
@@ -170,7 +219,7 @@ public class WebSocketHandler {
             default -> throw new ResponseException(400, "Start and end position must be in form of row letter and column number. i.e. e4");
         };
 
-        return new ChessPosition(first, second);
+        return ChessPosition.of(first, second);
     }
 
     private void resign(String authToken, int gameId, Session session) throws IOException {
@@ -198,8 +247,10 @@ public class WebSocketHandler {
                 throw new Exception("Invalid command, user is not a player");
             }
 
-            gameData.game().setGameOver();
-            webSocketService.saveGameData(gameData);
+            // Change a copy, the cached game is only replaced once the save goes through
+            ChessGame game = new ChessGame(gameData.game());
+            game.setGameOver();
+            webSocketService.saveGameData(gameData.withGame(game));
 
             var message = String.format("Team %s, %s, has resigned", team, userName);
             var serverMessage = new ServerMessage(ServerMessage.ServerMessageType.NOTIFICATION, null, null, message);
@@ -226,13 +277,11 @@ public class WebSocketHandler {
             String message;
             if (Objects.equals(gameData.whiteUsername(), userName) && !isGameOver) {
                 message = String.format("Team white, %s, has left the game", userName);
-                GameData newGameData = gameData.withWhiteUsername(null);
-                webSocketService.saveGameData(newGameData);
+                webSocketService.removePlayer(gameId, ChessGame.TeamColor.WHITE);
             }
             else if (Objects.equals(gameData.blackUsername(), userName) && !isGameOver) {
                 message = String.format("Team black, %s, has left the game", userName);
-                GameData newGameData = gameData.withBlackUsername(null);
-                webSocketService.saveGameData(newGameData);
+                webSocketService.removePlayer(gameId, ChessGame.TeamColor.BLACK);
             }
             else {
                 message = String.format("%s has stopped observing", userName);
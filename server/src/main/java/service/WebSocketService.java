@@ -1,5 +1,6 @@
 package service;
 
+import chess.ChessGame;
 import dataaccess.AuthDAO;
 import dataaccess.DataAccessException;
 import dataaccess.GameDAO;
@@ -35,4 +36,8 @@ public class WebSocketService {
     public void saveGameData(GameData gameData) throws DataAccessException {
         gameDAO.saveGame(gameData);
     }
+
+    public void removePlayer(int gameId, ChessGame.TeamColor teamColor) throws DataAccessException {
+        gameDAO.updateGame(gameId, teamColor, null);
+    }
 }
@@ -0,0 +1,244 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import dataaccess.cache.CachedGameDataAccess;
+import dataaccess.memory.GameMemoryDataAccess;
+import model.GameData;
+import org.junit.jupiter.api.*;
+
+import java.util.Collection;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CachedGameDataAccessTests {
+    // Long enough that nothing is written unless a test flushes
+    private static final long NEVER = 60 * 60 * 1000;
+
+    private CountingGameDAO backing;
+    private CachedGameDataAccess cache;
+
+    @BeforeEach
+    void setUp() {
+        backing = new CountingGameDAO();
+        cache = new CachedGameDataAccess(backing, NEVER, 64, NEVER);
+    }
+
+    @AfterEach
+    void tearDown() throws DataAccessException {
+        cache.close();
+    }
+
+    @Test
+    void readsAreServedFromMemory() throws Exception {
+        Integer id = cache.createGame("game");
+        GameData first = cache.getGame(id);
+        GameData second = cache.getGame(id);
+
+        assertSame(first, second);
+        assertEquals(1, backing.reads);
+        assertEquals(1, cache.stats().hits());
+    }
+
+    @Test
+    void savesAreWrittenOnFlush() throws Exception {
+        Integer id = cache.createGame("game");
+        GameData gameData = cache.getGame(id);
+        gameData.game().makeMove(ChessMove.of(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null));
+        cache.saveGame(gameData);
+
+        assertEquals(0, backing.writes);
+        assertEquals(ChessGame.TeamColor.BLACK, cache.getGame(id).game().getTeamTurn());
+        assertEquals(ChessGame.TeamColor.BLACK, cache.listGames().getFirst().game().getTeamTurn());
+
+        cache.flush();
+        assertEquals(1, backing.writes);
+        assertEquals(0, cache.stats().dirty());
+        assertEquals(ChessGame.TeamColor.BLACK, backing.getGame(id).game().getTeamTurn());
+    }
+
+    @Test
+    void flushWritesTheGameAsSaved() throws Exception {
+        Integer id = cache.createGame("game");
+        GameData gameData = cache.getGame(id);
+        cache.saveGame(gameData);
+
+        // Changes made after the save belong to the next save
+        gameData.game().makeMove(ChessMove.of(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null));
+        cache.flush();
+
+        assertEquals(ChessGame.TeamColor.WHITE, backing.getGame(id).game().getTeamTurn());
+    }
+
+    @Test
+    void closeWritesWaitingGames() throws Exception {
+        Integer id = cache.createGame("game");
+        cache.saveGame(cache.getGame(id).withGame(afterE4()));
+        cache.close();
+
+        assertEquals(ChessGame.TeamColor.BLACK, backing.getGame(id).game().getTeamTurn());
+    }
+
+    @Test
+    void joiningUpdatesResidentGames() throws Exception {
+        Integer id = cache.createGame("game");
+        cache.getGame(id);
+        cache.updateGame(id, ChessGame.TeamColor.BLACK, "black");
+
+        assertEquals("black", cache.getGame(id).blackUsername());
+        assertEquals("black", backing.getGame(id).blackUsername());
+    }
+
+    @Test
+    void saveFromBeforeAJoinKeepsThePlayer() throws Exception {
+        Integer id = cache.createGame("game");
+        // A move still holding the game as it was before black joined
+        GameData stale = cache.getGame(id);
+        cache.updateGame(id, ChessGame.TeamColor.BLACK, "black");
+        cache.saveGame(stale.withGame(afterE4()));
+
+        assertEquals("black", cache.getGame(id).blackUsername());
+        assertEquals(ChessGame.TeamColor.BLACK, cache.getGame(id).game().getTeamTurn());
+        cache.flush();
+        assertEquals("black", backing.getGame(id).blackUsername());
+        assertEquals(ChessGame.TeamColor.BLACK, backing.getGame(id).game().getTeamTurn());
+    }
+
+    @Test
+    void joinWhileASaveWaitsIsKept() throws Exception {
+        Integer id = cache.createGame("game");
+        cache.saveGame(cache.getGame(id).withGame(afterE4()));
+        cache.updateGame(id, ChessGame.TeamColor.WHITE, "white");
+
+        assertEquals("white", cache.listGames().getFirst().whiteUsername());
+        cache.flush();
+        assertEquals("white", backing.getGame(id).whiteUsername());
+        assertEquals(ChessGame.TeamColor.BLACK, backing.getGame(id).game().getTeamTurn());
+    }
+
+    @Test
+    void joinsRacingSavesAreNeverLost() throws Exception {
+        int games = 50;
+        Integer[] ids = new Integer[games];
+        for (int i = 0; i < games; i++) {
+            ids[i] = cache.createGame("game" + i);
+        }
+
+        // One thread keeps saving the copies it read first while the other joins every game
+        Thread saver = new Thread(() -> {
+            try {
+                GameData[] stale = new GameData[games];
+                for (int i = 0; i < games; i++) {
+                    stale[i] = cache.getGame(ids[i]);
+                }
+                for (int round = 0; round < 200; round++) {
+                    for (GameData gameData : stale) {
+                        cache.saveGame(gameData);
+                    }
+                    cache.flush();
+                }
+            } catch (DataAccessException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        saver.start();
+        for (Integer id : ids) {
+            cache.updateGame(id, ChessGame.TeamColor.WHITE, "white" + id);
+        }
+        saver.join();
+        cache.flush();
+
+        for (Integer id : ids) {
+            assertEquals("white" + id, cache.getGame(id).whiteUsername());
+            assertEquals("white" + id, backing.getGame(id).whiteUsername());
+        }
+    }
+
+    @Test
+    void joinDuringALoadIsKept() throws Exception {
+        Integer id = cache.createGame("game");
+        CountDownLatch readHeld = new CountDownLatch(1);
+        backing.readHeld = readHeld;
+
+        // The game isn't resident, so this reads it from the backing DAO before black joins
+        Thread loader = new Thread(() -> {
+            try {
+                cache.getGame(id);
+            } catch (DataAccessException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        loader.start();
+        assertTrue(readHeld.await(5, TimeUnit.SECONDS));
+
+        Thread joiner = new Thread(() -> {
+            try {
+                cache.updateGame(id, ChessGame.TeamColor.BLACK, "black");
+            } catch (DataAccessException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        joiner.start();
+        // The join may wait for the load to finish, give it time to get as far as it can
+        joiner.join(200);
+        backing.release.countDown();
+        loader.join();
+        joiner.join();
+
+        assertEquals("black", cache.getGame(id).blackUsername());
+        assertEquals(1, cache.stats().misses());
+    }
+
+    private static ChessGame afterE4() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(ChessMove.of(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null));
+        return game;
+    }
+
+    private static class CountingGameDAO extends GameMemoryDataAccess {
+        private int reads;
+        private int writes;
+
+        // The memory DAO isn't thread safe, and the racing test reaches it from two threads
+
+        // Set to hold the next read after it has read the game, until the test lets it go
+        private volatile CountDownLatch readHeld;
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public GameData getGame(Integer gameId) {
+            GameData gameData = read(gameId);
+            CountDownLatch held = readHeld;
+            if (held != null) {
+                readHeld = null;
+                held.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return gameData;
+        }
+
+        private synchronized GameData read(Integer gameId) {
+            reads++;
+            return super.getGame(gameId);
+        }
+
+        @Override
+        public synchronized void updateGame(Integer gameId, ChessGame.TeamColor teamColor, String userName) {
+            super.updateGame(gameId, teamColor, userName);
+        }
+
+        @Override
+        public synchronized void saveGames(Collection<GameData> games) throws DataAccessException {
+            writes += games.size();
+            super.saveGames(games);
+        }
+    }
+}
@@ -0,0 +1,396 @@
+package dataaccess;
+
+import org.junit.jupiter.api.*;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConnectionPoolTests {
+    private static final long NEVER = 60 * 60 * 1000;
+
+    private FakeDriver driver;
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        driver = new FakeDriver();
+        DriverManager.registerDriver(driver);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        if (pool != null) {
+            pool.close();
+        }
+        DriverManager.deregisterDriver(driver);
+    }
+
+    @Test
+    void acquireTimesOutWhenExhausted() throws Exception {
+        pool = pool(new ConnectionPool.Config(0, 1, 50, NEVER, NEVER, 0, 0));
+        try (Connection held = pool.getConnection()) {
+            assertThrows(DataAccessException.class, () -> pool.getConnection());
+            assertEquals(1, pool.stats().acquireTimeouts());
+            assertEquals(1, pool.stats().inUse());
+        }
+        try (Connection again = pool.getConnection()) {
+            assertEquals(1, driver.connections.size());
+        }
+    }
+
+    @Test
+    void returnedConnectionIsReset() throws Exception {
+        pool = pool(new ConnectionPool.Config(0, 1, 50, NEVER, NEVER, 0, 0));
+        try (Connection connection = pool.getConnection()) {
+            connection.setAutoCommit(false);
+            connection.setReadOnly(true);
+        }
+
+        FakeConnection fake = driver.connections.getFirst();
+        assertTrue(fake.autoCommit);
+        assertFalse(fake.readOnly);
+        assertEquals(1, fake.rollbacks);
+        try (Connection connection = pool.getConnection()) {
+            assertTrue(connection.getAutoCommit());
+            assertFalse(connection.isReadOnly());
+        }
+        assertEquals(1, driver.connections.size());
+    }
+
+    @Test
+    void closedConnectionIsReplaced() throws Exception {
+        pool = pool(new ConnectionPool.Config(0, 1, 50, NEVER, NEVER, 0, 0));
+        try (Connection connection = pool.getConnection()) {
+            // The database dropped it while it was checked out
+            driver.connections.getFirst().closed = true;
+        }
+        assertEquals(0, pool.stats().open());
+
+        try (Connection connection = pool.getConnection()) {
+            assertFalse(connection.isClosed());
+        }
+        assertEquals(2, driver.connections.size());
+    }
+
+    @Test
+    void invalidConnectionIsReplaced() throws Exception {
+        // Validate every idle connection before it is reused
+        pool = pool(new ConnectionPool.Config(0, 1, 50, NEVER, 0, 0, 0));
+        try (Connection connection = pool.getConnection()) {
+            assertFalse(connection.isClosed());
+        }
+        FakeConnection broken = driver.connections.getFirst();
+        broken.valid = false;
+
+        try (Connection connection = pool.getConnection()) {
+            assertFalse(connection.isClosed());
+        }
+        assertTrue(broken.closed);
+        assertEquals(2, driver.connections.size());
+        assertEquals(1, pool.stats().validationFailures());
+        assertEquals(1, pool.stats().open());
+    }
+
+    @Test
+    void secondCloseDoesNothing() throws Exception {
+        pool = pool(new ConnectionPool.Config(0, 1, 50, NEVER, NEVER, 0, 0));
+        Connection connection = pool.getConnection();
+        connection.close();
+        connection.close();
+
+        assertTrue(connection.isClosed());
+        assertThrows(SQLException.class, () -> connection.prepareStatement("SELECT 1"));
+        assertEquals(1, pool.stats().idle());
+        // Had the second close given back another permit, both of these would be handed out
+        try (Connection first = pool.getConnection()) {
+            assertThrows(DataAccessException.class, () -> pool.getConnection());
+        }
+    }
+
+    @Test
+    void closeWhileLeased() throws Exception {
+        pool = pool(new ConnectionPool.Config(0, 2, 50, NEVER, NEVER, 0, 0));
+        Connection leased = pool.getConnection();
+        pool.getConnection().close();
+
+        pool.close();
+        assertThrows(DataAccessException.class, () -> pool.getConnection());
+        assertTrue(driver.connections.get(1).closed);
+        assertEquals(1, pool.stats().inUse());
+
+        // Still usable until it is given back, then closed rather than pooled
+        assertTrue(leased.getAutoCommit());
+        leased.close();
+        assertTrue(driver.connections.getFirst().closed);
+        assertEquals(0, pool.stats().open());
+        assertEquals(0, pool.stats().idle());
+    }
+
+    @Test
+    void leakIsReportedOnce() throws Exception {
+        pool = pool(new ConnectionPool.Config(0, 1, 50, NEVER, NEVER, 1, 0));
+        try (Connection held = pool.getConnection()) {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (pool.stats().leaksDetected() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            Thread.sleep(250);
+            assertEquals(1, pool.stats().leaksDetected());
+        }
+    }
+
+    @Test
+    void closedStatementIsKeptForTheNextCaller() throws Exception {
+        pool = pool(new ConnectionPool.Config(0, 1, 50, NEVER, NEVER, 0, 2));
+        try (Connection connection = pool.getConnection()) {
+            PreparedStatement first = connection.prepareStatement("SELECT 1");
+            first.close();
+
+            FakeStatement fake = driver.connections.getFirst().statements.getFirst();
+            assertTrue(first.isClosed());
+            assertFalse(fake.closed);
+            assertEquals(1, fake.parametersCleared);
+
+            try (PreparedStatement second = connection.prepareStatement("SELECT 1")) {
+                assertFalse(second.isClosed());
+            }
+        }
+        // Given back with the connection and handed out again from there
+        try (Connection connection = pool.getConnection();
+             PreparedStatement third = connection.prepareStatement("SELECT 1")) {
+            assertFalse(third.isClosed());
+        }
+        assertEquals(1, driver.connections.getFirst().statements.size());
+        assertEquals(2, pool.stats().statementHits());
+        assertEquals(1, pool.stats().statementMisses());
+    }
+
+    @Test
+    void evictedStatementIsClosed() throws Exception {
+        pool = pool(new ConnectionPool.Config(0, 1, 50, NEVER, NEVER, 0, 1));
+        try (Connection connection = pool.getConnection()) {
+            connection.prepareStatement("SELECT 1").close();
+            connection.prepareStatement("SELECT 2").close();
+
+            List<FakeStatement> statements = driver.connections.getFirst().statements;
+            assertTrue(statements.get(0).closed);
+            assertFalse(statements.get(1).closed);
+        }
+    }
+
+    @Test
+    void statementEvictedInUseIsClosedWhenDone() throws Exception {
+        pool = pool(new ConnectionPool.Config(0, 1, 50, NEVER, NEVER, 0, 1));
+        try (Connection connection = pool.getConnection()) {
+            PreparedStatement inUse = connection.prepareStatement("SELECT 1");
+            connection.prepareStatement("SELECT 2").close();
+
+            FakeStatement evicted = driver.connections.getFirst().statements.getFirst();
+            assertFalse(evicted.closed);
+            inUse.close();
+            assertTrue(evicted.closed);
+        }
+    }
+
+    @Test
+    void statementForSqlAlreadyInUseIsWrapped() throws Exception {
+        pool = pool(new ConnectionPool.Config(0, 1, 50, NEVER, NEVER, 0, 2));
+        try (Connection connection = pool.getConnection()) {
+            PreparedStatement cached = connection.prepareStatement("SELECT 1");
+            PreparedStatement extra = connection.prepareStatement("SELECT 1");
+
+            assertSame(connection, extra.getConnection());
+            extra.close();
+            List<FakeStatement> statements = driver.connections.getFirst().statements;
+            assertTrue(statements.get(1).closed);
+            assertFalse(statements.get(0).closed);
+            cached.close();
+            assertFalse(statements.get(0).closed);
+        }
+    }
+
+    @Test
+    void uncachedStatementIsWrapped() throws Exception {
+        pool = pool(new ConnectionPool.Config(0, 1, 50, NEVER, NEVER, 0, 0));
+        try (Connection connection = pool.getConnection()) {
+            PreparedStatement statement = connection.prepareStatement("SELECT 1");
+            assertSame(connection, statement.getConnection());
+            statement.close();
+            assertTrue(driver.connections.getFirst().statements.getFirst().closed);
+        }
+    }
+
+    @Test
+    void statementLeftOpenIsClosedOnReturn() throws Exception {
+        pool = pool(new ConnectionPool.Config(0, 1, 50, NEVER, NEVER, 0, 2));
+        try (Connection connection = pool.getConnection()) {
+            connection.prepareStatement("SELECT 1");
+        }
+        List<FakeStatement> statements = driver.connections.getFirst().statements;
+        assertTrue(statements.getFirst().closed);
+
+        // The SQL is cached again rather than left to fall back to uncached statements
+        try (Connection connection = pool.getConnection()) {
+            connection.prepareStatement("SELECT 1").close();
+            connection.prepareStatement("SELECT 1").close();
+        }
+        assertEquals(2, statements.size());
+        assertFalse(statements.get(1).closed);
+        assertEquals(1, pool.stats().statementHits());
+    }
+
+    private ConnectionPool pool(ConnectionPool.Config config) {
+        return new ConnectionPool(FakeDriver.URL, "user", "password", "chess", config);
+    }
+
+    /**
+     * Hands out fake connections and keeps them so tests can look at what the pool did to them
+     */
+    static class FakeDriver implements Driver {
+        static final String URL = "jdbc:fake:pool";
+
+        final List<FakeConnection> connections = new ArrayList<>();
+
+        @Override
+        public synchronized Connection connect(String url, Properties info) {
+            if (!acceptsURL(url)) {
+                return null;
+            }
+            FakeConnection connection = new FakeConnection();
+            connections.add(connection);
+            return connection.proxy;
+        }
+
+        @Override
+        public boolean acceptsURL(String url) {
+            return url.startsWith(URL);
+        }
+
+        @Override
+        public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+            return new DriverPropertyInfo[0];
+        }
+
+        @Override
+        public int getMajorVersion() {
+            return 1;
+        }
+
+        @Override
+        public int getMinorVersion() {
+            return 0;
+        }
+
+        @Override
+        public boolean jdbcCompliant() {
+            return false;
+        }
+
+        @Override
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            throw new SQLFeatureNotSupportedException();
+        }
+    }
+
+    /**
+     * Keeps the connection state the pool changes, only the methods the pool and these tests use do anything
+     */
+    static class FakeConnection {
+        boolean autoCommit = true;
+        boolean readOnly;
+        volatile boolean closed;
+        boolean valid = true;
+        int rollbacks;
+        int commits;
+        boolean failBatches;
+        final List<FakeStatement> statements = new ArrayList<>();
+
+        final Connection proxy = (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, (proxy, method, args) ->
+                        switch (method.getName()) {
+                            case "getAutoCommit" -> autoCommit;
+                            case "setAutoCommit" -> {
+                                autoCommit = (boolean) args[0];
+                                yield null;
+                            }
+                            case "isReadOnly" -> readOnly;
+                            case "setReadOnly" -> {
+                                readOnly = (boolean) args[0];
+                                yield null;
+                            }
+                            case "rollback" -> {
+                                rollbacks++;
+                                yield null;
+                            }
+                            case "commit" -> {
+                                commits++;
+                                yield null;
+                            }
+                            case "isClosed" -> closed;
+                            case "close" -> {
+                                closed = true;
+                                yield null;
+                            }
+                            case "isValid" -> valid && !closed;
+                            case "prepareStatement" -> {
+                                FakeStatement statement = new FakeStatement(this, (String) args[0]);
+                                statements.add(statement);
+                                yield statement.proxy;
+                            }
+                            default -> null;
+                        });
+    }
+
+    /**
+     * Records what was done with a prepared statement
+     */
+    static class FakeStatement {
+        final String sql;
+        boolean closed;
+        int parametersCleared;
+        int batches;
+
+        final PreparedStatement proxy;
+
+        FakeStatement(FakeConnection connection, String sql) {
+            this.sql = sql;
+            proxy = (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                    (self, method, args) -> switch (method.getName()) {
+                        case "close" -> {
+                            closed = true;
+                            yield null;
+                        }
+                        case "isClosed" -> closed;
+                        case "getConnection" -> connection.proxy;
+                        case "clearParameters" -> {
+                            parametersCleared++;
+                            yield null;
+                        }
+                        case "addBatch" -> {
+                            batches++;
+                            yield null;
+                        }
+                        case "executeBatch" -> {
+                            if (connection.failBatches) {
+                                throw new SQLException("Batch failed");
+                            }
+                            yield new int[batches];
+                        }
+                        default -> null;
+                    });
+        }
+    }
+}
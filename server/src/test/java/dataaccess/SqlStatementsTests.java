@@ -0,0 +1,40 @@
+package dataaccess;
+
+import org.junit.jupiter.api.*;
+
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SqlStatementsTests {
+    private static final String UPDATE = "UPDATE games SET game = ? WHERE gameId = ?";
+    private static final List<Object[]> ROWS = List.of(new Object[]{"one", 1}, new Object[]{"two", 2});
+
+    @Test
+    void batchIsCommittedTogether() throws Exception {
+        ConnectionPoolTests.FakeConnection connection = new ConnectionPoolTests.FakeConnection();
+
+        int[] counts = SqlStatements.executeBatch(connection.proxy, UPDATE, ROWS);
+
+        assertEquals(2, counts.length);
+        assertEquals(2, connection.statements.getFirst().batches);
+        assertEquals(1, connection.commits);
+        assertEquals(0, connection.rollbacks);
+        assertTrue(connection.autoCommit);
+        assertTrue(connection.statements.getFirst().closed);
+    }
+
+    @Test
+    void failingBatchRollsBack() {
+        ConnectionPoolTests.FakeConnection connection = new ConnectionPoolTests.FakeConnection();
+        connection.failBatches = true;
+
+        assertThrows(SQLException.class, () -> SqlStatements.executeBatch(connection.proxy, UPDATE, ROWS));
+
+        assertEquals(0, connection.commits);
+        assertEquals(1, connection.rollbacks);
+        assertTrue(connection.autoCommit);
+        assertTrue(connection.statements.getFirst().closed);
+    }
+}
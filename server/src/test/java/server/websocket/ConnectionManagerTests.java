@@ -0,0 +1,128 @@
+package server.websocket;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import json.JsonCodec;
+import model.GameData;
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.junit.jupiter.api.*;
+import websocket.messages.ServerMessage;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConnectionManagerTests {
+    private static final int GAME_ID = 7;
+
+    private ConnectionManager connections;
+
+    @BeforeEach
+    void setUp() {
+        connections = new ConnectionManager();
+    }
+
+    @Test
+    void moveEncodedOncePerMessageType() throws Exception {
+        FakeSession white = connect("white", true);
+        FakeSession black = connect("black", true);
+        FakeSession observer = connect("observer", false);
+
+        ChessGame game = new ChessGame();
+        ServerMessage loadGame = ServerMessage.loadGame(new GameData(GAME_ID, "white", "black", "game", game), 1);
+        ServerMessage moveApplied = ServerMessage.moveApplied(
+                ChessMove.of(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null), 1, game.evaluateStatus());
+
+        long encodes = JsonCodec.stats().encodes();
+        connections.broadcastMove(GAME_ID, loadGame, moveApplied);
+
+        assertEquals(2, JsonCodec.stats().encodes() - encodes);
+        assertSame(white.sent.getFirst(), black.sent.getFirst());
+        assertEquals(JsonCodec.toJson(loadGame), observer.sent.getFirst());
+
+        ConnectionManager.Stats stats = connections.stats();
+        assertEquals(2, stats.broadcasts());
+        assertEquals(3, stats.messagesSent());
+        assertEquals(2L * utf8(white.sent.getFirst()) + utf8(observer.sent.getFirst()), stats.bytesSent());
+    }
+
+    @Test
+    void bytesCountedAsUtf8() throws Exception {
+        FakeSession one = connect("one", false);
+        FakeSession two = connect("two", false);
+
+        connections.broadcastToAll(GAME_ID,
+                new ServerMessage(ServerMessage.ServerMessageType.NOTIFICATION, null, null, "José resigned ♔"));
+
+        String json = one.sent.getFirst();
+        assertSame(json, two.sent.getFirst());
+        assertEquals(1, connections.stats().broadcasts());
+        assertEquals(2L * utf8(json), connections.stats().bytesSent());
+    }
+
+    @Test
+    void excludedAndClosedConnectionsAreSkipped() throws Exception {
+        FakeSession mover = connect("mover", false);
+        FakeSession other = connect("other", false);
+        FakeSession gone = connect("gone", false);
+        gone.open = false;
+
+        connections.broadcastAndExcludeOne(GAME_ID, "mover",
+                new ServerMessage(ServerMessage.ServerMessageType.NOTIFICATION, null, null, "moved"));
+
+        assertTrue(mover.sent.isEmpty());
+        assertEquals(1, other.sent.size());
+        assertTrue(gone.sent.isEmpty());
+        assertEquals(1, connections.stats().messagesSent());
+        assertFalse(connections.connections.get(GAME_ID).containsKey("gone"));
+    }
+
+    @Test
+    void nothingEncodedWhenNobodyGetsIt() throws Exception {
+        connect("one", false);
+
+        connections.broadcastToOne(GAME_ID, "missing",
+                new ServerMessage(ServerMessage.ServerMessageType.ERROR, null, "Error: nope", null));
+
+        assertEquals(new ConnectionManager.Stats(0, 0, 0), connections.stats());
+    }
+
+    private FakeSession connect(String authToken, boolean moveUpdates) {
+        FakeSession session = new FakeSession();
+        connections.add(GAME_ID, authToken, session.proxy, moveUpdates);
+        return session;
+    }
+
+    private static long utf8(String text) {
+        return text.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    /**
+     * Records what is sent to it, only the methods ConnectionManager uses do anything
+     */
+    private static class FakeSession {
+        private final List<String> sent = new ArrayList<>();
+        private boolean open = true;
+
+        private final RemoteEndpoint remote = (RemoteEndpoint) Proxy.newProxyInstance(
+                RemoteEndpoint.class.getClassLoader(), new Class<?>[]{RemoteEndpoint.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("sendString")) {
+                        sent.add((String) args[0]);
+                    }
+                    return null;
+                });
+
+        private final Session proxy = (Session) Proxy.newProxyInstance(
+                Session.class.getClassLoader(), new Class<?>[]{Session.class}, (proxy, method, args) ->
+                        switch (method.getName()) {
+                            case "isOpen" -> open;
+                            case "getRemote" -> remote;
+                            default -> null;
+                        });
+    }
+}
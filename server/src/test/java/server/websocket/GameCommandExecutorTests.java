@@ -0,0 +1,113 @@
+package server.websocket;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameCommandExecutorTests {
+    private GameCommandExecutor commands;
+
+    @BeforeEach
+    void setUp() {
+        commands = new GameCommandExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        commands.shutdown();
+    }
+
+    @Test
+    void oneGameRunsInOrder() throws Exception {
+        int count = 2000;
+        List<Integer> ran = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger running = new AtomicInteger();
+        AtomicBoolean overlapped = new AtomicBoolean();
+        CountDownLatch done = new CountDownLatch(count);
+
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            assertTrue(commands.submit(1, () -> {
+                if (running.incrementAndGet() > 1) {
+                    overlapped.set(true);
+                }
+                ran.add(index);
+                running.decrementAndGet();
+                done.countDown();
+            }));
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertFalse(overlapped.get());
+        for (int i = 0; i < count; i++) {
+            assertEquals(i, ran.get(i));
+        }
+    }
+
+    @Test
+    void differentGamesRunConcurrently() throws Exception {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        AtomicInteger sawTheOther = new AtomicInteger();
+
+        // Each command waits for the other game's command, so both only finish if they run together
+        for (int gameId = 1; gameId <= 2; gameId++) {
+            commands.submit(gameId, () -> {
+                bothStarted.countDown();
+                try {
+                    if (bothStarted.await(5, TimeUnit.SECONDS)) {
+                        sawTheOther.incrementAndGet();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        commands.shutdown();
+        assertEquals(2, sawTheOther.get());
+    }
+
+    @Test
+    void failureDoesNotStopTheGame() throws Exception {
+        CountDownLatch after = new CountDownLatch(1);
+        commands.submit(1, () -> { throw new IllegalStateException("boom"); });
+        commands.submit(1, after::countDown);
+
+        assertTrue(after.await(5, TimeUnit.SECONDS));
+        commands.shutdown();
+        assertEquals(1, commands.stats().failed());
+        assertEquals(2, commands.stats().completed());
+    }
+
+    @Test
+    void drainedMailboxesAreRemoved() {
+        for (int gameId = 0; gameId < 100; gameId++) {
+            commands.submit(gameId, () -> { });
+        }
+
+        // Waits for every drain to finish
+        commands.shutdown();
+        assertTrue(commands.mailboxes.isEmpty());
+        assertEquals(0, commands.stats().queued());
+    }
+
+    @Test
+    void submitAfterShutdownIsRejected() {
+        commands.shutdown();
+        AtomicBoolean ran = new AtomicBoolean();
+
+        assertFalse(commands.submit(1, () -> ran.set(true)));
+        assertFalse(ran.get());
+        assertTrue(commands.mailboxes.isEmpty());
+        assertEquals(1, commands.stats().rejected());
+        assertEquals(0, commands.stats().submitted());
+    }
+}
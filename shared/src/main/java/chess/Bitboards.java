@@ -0,0 +1,289 @@
+package chess;
+
+/**
+ * Bitboard helpers shared by the board and the move calculators.
+ * <p>
+ * A bitboard is a long where bit (row - 1) * 8 + (column - 1) stands for a
+ * square, so a1 is bit 0, h1 is bit 7 and h8 is bit 63.
+ */
+public class Bitboards {
+
+    public static final long[] KNIGHT_ATTACKS = new long[64];
+    public static final long[] KING_ATTACKS = new long[64];
+    public static final long[][] PAWN_ATTACKS = new long[2][64];
+
+    // Ray directions, the first four increase the square index and the last four decrease it
+    private static final int[][] DIRECTIONS = {
+            {1, 0}, {0, 1}, {1, 1}, {1, -1},
+            {-1, 0}, {0, -1}, {-1, -1}, {-1, 1}
+    };
+    private static final int[] ROOK_DIRECTIONS = {0, 1, 4, 5};
+    private static final int[] BISHOP_DIRECTIONS = {2, 3, 6, 7};
+    private static final long[][] RAYS = new long[8][64];
+    private static final long[][] BETWEEN = new long[64][64];
+
+    /*
+     * Magic bitboard tables for sliding pieces. The relevant blockers for a square (its rays
+     * without the board edge) are multiplied by the square's magic number and the top bits of
+     * the product index a precomputed attack set. The magics were found with a seeded random
+     * search and only the attack tables are built when the class loads.
+     */
+    private static final long[] ROOK_MAGICS = {
+            0x1080004008801020L, 0x0840092002C03000L, 0x1900200010400900L, 0x0880100008000480L,
+            0x4200100420080200L, 0x8100020100080400L, 0x0200040110886200L, 0x0200008040220411L,
+            0x0404800084400220L, 0x0000401000402000L, 0x0086001081220440L, 0x0408800800100280L,
+            0x000A001201040820L, 0x8848800200840080L, 0x4001000100040200L, 0x0442000102105084L,
+            0x9080010020804100L, 0x0040404000201009L, 0x0000808010002009L, 0x2200090021D00100L,
+            0x0008008008040080L, 0x0004004002010040L, 0x0011040008015042L, 0x00000A0001768104L,
+            0x0000800080204009L, 0x2010004140002001L, 0x9800200280100080L, 0x1000100080080080L,
+            0x0442000A00049020L, 0x2100040080020080L, 0x0800120400900148L, 0x0010040A00128541L,
+            0x2800804000800030L, 0x1010002000400041L, 0x4000200011004100L, 0x0610008410800800L,
+            0x0400802402800800L, 0xC100020080800400L, 0x0002000802000401L, 0x0182085882000401L,
+            0x0220204000808000L, 0x2860100040024022L, 0x0001002004110040L, 0x99101042000A0020L,
+            0x0004080004008080L, 0x0010040002008080L, 0x2012004881020004L, 0x8300842444820011L,
+            0x0088403882010200L, 0x0820400080210100L, 0x0110910040A00300L, 0x0801100280080480L,
+            0x0242009008200600L, 0x1002000489500200L, 0x0040800200010080L, 0x0091800041000080L,
+            0x0000209300488001L, 0x04C1002414824001L, 0x020020000B001041L, 0x7000100004200901L,
+            0x8002002004100802L, 0x30010002084C0007L, 0x0888221800813004L, 0x4000002840840112L
+    };
+    private static final long[] BISHOP_MAGICS = {
+            0xA010041108003100L, 0x006082020A002900L, 0x6810010619200000L, 0x08281A0520000408L,
+            0x0001104001000400L, 0x0018901008048400L, 0x00040A0210245280L, 0x000200210808A402L,
+            0x9140048410821200L, 0x0800091010820041L, 0x20504804832202C0L, 0x0100091401081000L,
+            0x8021011140000012L, 0x0810020804450400L, 0x208B0542109008A2L, 0x0080084A08040204L,
+            0x0040E2A80811244CL, 0x2505022008008108L, 0x0430220100420040L, 0x010A040420220040L,
+            0x1105000290400000L, 0x0093001200822120L, 0x4000A62048043004L, 0x280120048A015004L,
+            0x006090002A020814L, 0x44042000240800D0L, 0x01102800040A4400L, 0x1004080080220040L,
+            0x0001001011004024L, 0x0010044000805040L, 0x0914041200820100L, 0x0004821012821480L,
+            0x0024040500C05021L, 0x0088611002080200L, 0x0116080A00040020L, 0x4000020080080080L,
+            0x2450450140840040L, 0x0000880201484100L, 0x0222020404020092L, 0x8081110600002E00L,
+            0x2842101105000801L, 0x1100809008001025L, 0x00020202221C0400L, 0x0422014022009020L,
+            0x0210046102100C00L, 0xC004008082029102L, 0x00AA461801101200L, 0x0404080080201108L,
+            0x020542108C205002L, 0x0410544804100100L, 0x0040910841100000L, 0x0400200042021100L,
+            0x00004204850400C0L, 0x0200100410A42102L, 0x1040020801210102L, 0x0805040410420000L,
+            0x2884804130100200L, 0x800C262201242000L, 0x1058000194108800L, 0x0014221054420204L,
+            0x0104000012A02200L, 0x0200881003300100L, 0x0140400202840100L, 0x0402020801010201L
+    };
+    private static final long[] ROOK_BLOCKERS = new long[64];
+    private static final long[] BISHOP_BLOCKERS = new long[64];
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final int[] ROOK_OFFSETS = new int[64];
+    private static final int[] BISHOP_OFFSETS = new int[64];
+    private static final long[] ROOK_TABLE;
+    private static final long[] BISHOP_TABLE;
+
+    // How long building the attack tables took when the class was loaded
+    private static final long TABLE_INIT_NANOS;
+
+    static {
+        long start = System.nanoTime();
+
+        int[][] knightOffsets = {{2, 1}, {2, -1}, {1, 2}, {1, -2}, {-2, 1}, {-2, -1}, {-1, 2}, {-1, -2}};
+        for (int square = 0; square < 64; square++) {
+            int row = row(square);
+            int column = column(square);
+
+            for (int[] offset : knightOffsets) {
+                KNIGHT_ATTACKS[square] |= bit(row + offset[0], column + offset[1]);
+            }
+            for (int[] direction : DIRECTIONS) {
+                KING_ATTACKS[square] |= bit(row + direction[0], column + direction[1]);
+            }
+            PAWN_ATTACKS[ChessGame.TeamColor.WHITE.ordinal()][square] = bit(row + 1, column - 1) | bit(row + 1, column + 1);
+            PAWN_ATTACKS[ChessGame.TeamColor.BLACK.ordinal()][square] = bit(row - 1, column - 1) | bit(row - 1, column + 1);
+
+            for (int d = 0; d < DIRECTIONS.length; d++) {
+                int currentRow = row + DIRECTIONS[d][0];
+                int currentCol = column + DIRECTIONS[d][1];
+                while (inBounds(currentRow, currentCol)) {
+                    RAYS[d][square] |= bit(currentRow, currentCol);
+                    currentRow += DIRECTIONS[d][0];
+                    currentCol += DIRECTIONS[d][1];
+                }
+            }
+        }
+
+        for (int square = 0; square < 64; square++) {
+            for (long[] ray : RAYS) {
+                long targets = ray[square];
+                while (targets != 0) {
+                    int target = Long.numberOfTrailingZeros(targets);
+                    targets &= targets - 1;
+                    BETWEEN[square][target] = ray[square] & ~ray[target] & ~(1L << target);
+                }
+            }
+        }
+
+        ROOK_TABLE = new long[buildOffsets(ROOK_DIRECTIONS, ROOK_BLOCKERS, ROOK_SHIFTS, ROOK_OFFSETS)];
+        BISHOP_TABLE = new long[buildOffsets(BISHOP_DIRECTIONS, BISHOP_BLOCKERS, BISHOP_SHIFTS, BISHOP_OFFSETS)];
+        fillTable(ROOK_DIRECTIONS, ROOK_BLOCKERS, ROOK_MAGICS, ROOK_SHIFTS, ROOK_OFFSETS, ROOK_TABLE);
+        fillTable(BISHOP_DIRECTIONS, BISHOP_BLOCKERS, BISHOP_MAGICS, BISHOP_SHIFTS, BISHOP_OFFSETS, BISHOP_TABLE);
+
+        TABLE_INIT_NANOS = System.nanoTime() - start;
+    }
+
+    /**
+     * @return the square index of a 1-based row and column
+     */
+    public static int square(int row, int column) {
+        return (row - 1) * 8 + (column - 1);
+    }
+
+    public static int square(ChessPosition position) {
+        return square(position.getRow(), position.getColumn());
+    }
+
+    /**
+     * @return the 1-based row of a square index
+     */
+    public static int row(int square) {
+        return (square >>> 3) + 1;
+    }
+
+    /**
+     * @return the 1-based column of a square index
+     */
+    public static int column(int square) {
+        return (square & 7) + 1;
+    }
+
+    public static ChessPosition position(int square) {
+        return ChessPosition.of(row(square), column(square));
+    }
+
+    /**
+     * Squares attacked by a rook on the given square, stopping at (and including) the first
+     * occupied square along each ray
+     *
+     * @param square    the rook's square index
+     * @param occupancy every occupied square on the board
+     * @return bitboard of attacked squares
+     */
+    public static long rookAttacks(int square, long occupancy) {
+        long blockers = occupancy & ROOK_BLOCKERS[square];
+        return ROOK_TABLE[ROOK_OFFSETS[square] + (int) ((blockers * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square])];
+    }
+
+    /**
+     * Squares attacked by a bishop on the given square, stopping at (and including) the first
+     * occupied square along each ray
+     *
+     * @param square    the bishop's square index
+     * @param occupancy every occupied square on the board
+     * @return bitboard of attacked squares
+     */
+    public static long bishopAttacks(int square, long occupancy) {
+        long blockers = occupancy & BISHOP_BLOCKERS[square];
+        return BISHOP_TABLE[BISHOP_OFFSETS[square] + (int) ((blockers * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square])];
+    }
+
+    public static long queenAttacks(int square, long occupancy) {
+        return rookAttacks(square, occupancy) | bishopAttacks(square, occupancy);
+    }
+
+    /**
+     * Squares strictly between two squares that share a row, column or diagonal
+     *
+     * @return bitboard of the squares in between, or 0 if the squares are not on a line
+     */
+    public static long between(int from, int to) {
+        return BETWEEN[from][to];
+    }
+
+    /**
+     * Single and double pushes for a pawn, a double push is only possible from the
+     * pawn's starting row and when both squares in front of it are empty
+     *
+     * @param square the pawn's square index
+     * @param team   the pawn's team
+     * @param empty  every empty square on the board
+     * @return bitboard of squares the pawn can move to without capturing
+     */
+    public static long pawnPushes(int square, ChessGame.TeamColor team, long empty) {
+        int direction = (team == ChessGame.TeamColor.WHITE) ? 1 : -1;
+        int startRow = (team == ChessGame.TeamColor.WHITE) ? 2 : 7;
+        int row = row(square);
+        int column = column(square);
+
+        long single = bit(row + direction, column) & empty;
+        if (single == 0 || row != startRow) {
+            return single;
+        }
+        return single | (bit(row + 2 * direction, column) & empty);
+    }
+
+    /**
+     * @param initNanos nanoseconds spent building the sliding attack tables when the class was loaded
+     * @param entries   entries in the rook and bishop attack tables together
+     * @param bytes     memory the attack tables take up
+     */
+    public record TableStats(long initNanos, int entries, long bytes) {}
+
+    /**
+     * @return the startup cost and size of the sliding attack tables
+     */
+    public static TableStats tableStats() {
+        int entries = ROOK_TABLE.length + BISHOP_TABLE.length;
+        return new TableStats(TABLE_INIT_NANOS, entries, (long) entries * Long.BYTES);
+    }
+
+    /**
+     * Finds the relevant blockers and index shift for every square, and where each square's
+     * slice of the attack table starts
+     *
+     * @return total size of the attack table
+     */
+    private static int buildOffsets(int[] directions, long[] blockers, int[] shifts, int[] offsets) {
+        int size = 0;
+        for (int square = 0; square < 64; square++) {
+            for (int direction : directions) {
+                // The last square of a ray never changes the attacks, so it is left out
+                long ray = RAYS[direction][square];
+                long edge = (direction < 4) ? Long.highestOneBit(ray) : Long.lowestOneBit(ray);
+                blockers[square] |= ray & ~edge;
+            }
+            int bits = Long.bitCount(blockers[square]);
+            shifts[square] = 64 - bits;
+            offsets[square] = size;
+            size += 1 << bits;
+        }
+        return size;
+    }
+
+    /**
+     * Walks every subset of each square's relevant blockers and stores the ray attacks for it
+     */
+    private static void fillTable(int[] directions, long[] blockers, long[] magics, int[] shifts, int[] offsets,
+                                  long[] table) {
+        for (int square = 0; square < 64; square++) {
+            long subset = 0L;
+            do {
+                long attacks = 0L;
+                for (int direction : directions) {
+                    attacks |= rayAttacks(direction, square, subset);
+                }
+                table[offsets[square] + (int) ((subset * magics[square]) >>> shifts[square])] = attacks;
+                subset = (subset - blockers[square]) & blockers[square];
+            } while (subset != 0);
+        }
+    }
+
+    private static long rayAttacks(int direction, int square, long occupancy) {
+        long attacks = RAYS[direction][square];
+        long blockers = attacks & occupancy;
+        if (blockers != 0) {
+            int blocker = (direction < 4) ? Long.numberOfTrailingZeros(blockers) : 63 - Long.numberOfLeadingZeros(blockers);
+            attacks ^= RAYS[direction][blocker];
+        }
+        return attacks;
+    }
+
+    private static boolean inBounds(int row, int column) {
+        return row >= 1 && row <= 8 && column >= 1 && column <= 8;
+    }
+
+    private static long bit(int row, int column) {
+        return inBounds(row, column) ? 1L << square(row, column) : 0L;
+    }
+}
@@ -1,7 +1,10 @@
 package chess;
 
+import com.google.gson.annotations.JsonAdapter;
+
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Objects;
+import java.util.List;
 
 /**
  * A chessboard that can hold and rearrange chess pieces.
@@ -9,12 +12,50 @@ import java.util.Objects;
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
+@JsonAdapter(ChessBoardAdapter.class)
 public class ChessBoard {
 
     public ChessPiece[][] chessBoard;
 
+    private static final ChessPiece.PieceType[] BACK_RANK = {
+            ChessPiece.PieceType.ROOK, ChessPiece.PieceType.KNIGHT, ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.QUEEN,
+            ChessPiece.PieceType.KING, ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.KNIGHT, ChessPiece.PieceType.ROOK
+    };
+
+    // Bitboards mirroring chessBoard, one per color and piece type plus one per color
+    private transient long[] pieceMasks = new long[12];
+    private transient long[] colorMasks = new long[2];
+
+    // Square of each team's king, or -1 when the team has no king on the board
+    private transient int[] kingSquares = {-1, -1};
+
+    // Zobrist key of the pieces on the board, kept up to date with the masks
+    private transient long zobristKey;
+
+    // The grid the masks were built from, so a replaced or deserialized grid gets picked up
+    private transient ChessPiece[][] maskedBoard;
+
     public ChessBoard() {
         chessBoard = new ChessPiece[8][8];
+        maskedBoard = chessBoard;
+    }
+
+    /**
+     * Creates a copy of a board that can be changed without affecting the original
+     *
+     * @param other the board to copy
+     */
+    public ChessBoard(ChessBoard other) {
+        chessBoard = new ChessPiece[8][8];
+        for (int i = 0; i < chessBoard.length; i++) {
+            chessBoard[i] = other.chessBoard[i].clone();
+        }
+        other.syncMasks();
+        pieceMasks = other.pieceMasks.clone();
+        colorMasks = other.colorMasks.clone();
+        kingSquares = other.kingSquares.clone();
+        zobristKey = other.zobristKey;
+        maskedBoard = chessBoard;
     }
 
     /**
@@ -24,6 +65,16 @@ public class ChessBoard {
      * @param piece    the piece to add
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
+        syncMasks();
+        int square = Bitboards.square(position);
+        ChessPiece oldPiece = chessBoard[position.getRow() - 1][position.getColumn() - 1];
+        if (oldPiece != null) {
+            toggleMasks(oldPiece, square);
+        }
+        if (piece != null) {
+            piece = ChessPiece.of(piece.getTeamColor(), piece.getPieceType());
+            toggleMasks(piece, square);
+        }
         chessBoard[position.getRow() - 1][position.getColumn() - 1] = piece;
     }
 
@@ -38,6 +89,119 @@ public class ChessBoard {
         return chessBoard[position.getRow() - 1][position.getColumn() - 1];
     }
 
+    /**
+     * Gets a chess piece on the chessboard by its square index
+     *
+     * @param square the square index, see Bitboards
+     * @return Either the piece on the square, or null if the square is empty
+     */
+    public ChessPiece getPiece(int square) {
+        return chessBoard[square >>> 3][square & 7];
+    }
+
+    /**
+     * Gets the bitboard of one kind of piece
+     *
+     * @param teamColor the team the pieces belong to
+     * @param type      the type of the pieces
+     * @return bitboard with a bit set for every square holding that piece
+     */
+    public long getPieces(ChessGame.TeamColor teamColor, ChessPiece.PieceType type) {
+        syncMasks();
+        return pieceMasks[maskIndex(teamColor, type)];
+    }
+
+    /**
+     * @return bitboard with a bit set for every square holding one of the team's pieces
+     */
+    public long getOccupancy(ChessGame.TeamColor teamColor) {
+        syncMasks();
+        return colorMasks[teamColor.ordinal()];
+    }
+
+    /**
+     * @return bitboard with a bit set for every occupied square
+     */
+    public long getOccupancy() {
+        syncMasks();
+        return colorMasks[0] | colorMasks[1];
+    }
+
+    /**
+     * Determines if any piece of a team attacks a square, by looking outward from the
+     * square for knights, pawns, kings and sliding pieces that could reach it
+     *
+     * @param position the square in question
+     * @param byColor  the attacking team
+     * @return True if the square is attacked by the team
+     */
+    public boolean isSquareAttacked(ChessPosition position, ChessGame.TeamColor byColor) {
+        return isSquareAttacked(Bitboards.square(position), byColor, getOccupancy());
+    }
+
+    /**
+     * Determines if any piece of a team attacks a square given a board occupancy,
+     * which lets callers leave a piece out when it is about to move
+     *
+     * @param square    the square index in question
+     * @param byColor   the attacking team
+     * @param occupancy every square that blocks sliding pieces
+     * @return True if the square is attacked by the team
+     */
+    public boolean isSquareAttacked(int square, ChessGame.TeamColor byColor, long occupancy) {
+        ChessGame.TeamColor defender = (byColor == ChessGame.TeamColor.WHITE) ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        if ((Bitboards.KNIGHT_ATTACKS[square] & getPieces(byColor, ChessPiece.PieceType.KNIGHT)) != 0) {
+            return true;
+        }
+        // A pawn attacks this square from where a defending pawn here would attack
+        if ((Bitboards.PAWN_ATTACKS[defender.ordinal()][square] & getPieces(byColor, ChessPiece.PieceType.PAWN)) != 0) {
+            return true;
+        }
+        if ((Bitboards.KING_ATTACKS[square] & getPieces(byColor, ChessPiece.PieceType.KING)) != 0) {
+            return true;
+        }
+
+        long queens = getPieces(byColor, ChessPiece.PieceType.QUEEN);
+        long rooks = getPieces(byColor, ChessPiece.PieceType.ROOK) | queens;
+        if (rooks != 0 && (Bitboards.rookAttacks(square, occupancy) & rooks) != 0) {
+            return true;
+        }
+        long bishops = getPieces(byColor, ChessPiece.PieceType.BISHOP) | queens;
+        return bishops != 0 && (Bitboards.bishopAttacks(square, occupancy) & bishops) != 0;
+    }
+
+    /**
+     * Gets the Zobrist key of the pieces on the board. Boards with the same pieces on the
+     * same squares have the same key
+     *
+     * @return 64-bit key of the board
+     */
+    public long getZobristKey() {
+        syncMasks();
+        return zobristKey;
+    }
+
+    /**
+     * Finds every piece of a team that attacks a square given a board occupancy
+     *
+     * @param square    the square index in question
+     * @param byColor   the attacking team
+     * @param occupancy every square that blocks sliding pieces
+     * @return bitboard of the attacking pieces
+     */
+    public long getAttackers(int square, ChessGame.TeamColor byColor, long occupancy) {
+        ChessGame.TeamColor defender = (byColor == ChessGame.TeamColor.WHITE) ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        long queens = getPieces(byColor, ChessPiece.PieceType.QUEEN);
+        long rooks = getPieces(byColor, ChessPiece.PieceType.ROOK) | queens;
+        long bishops = getPieces(byColor, ChessPiece.PieceType.BISHOP) | queens;
+
+        return (Bitboards.KNIGHT_ATTACKS[square] & getPieces(byColor, ChessPiece.PieceType.KNIGHT))
+                | (Bitboards.PAWN_ATTACKS[defender.ordinal()][square] & getPieces(byColor, ChessPiece.PieceType.PAWN))
+                | (Bitboards.KING_ATTACKS[square] & getPieces(byColor, ChessPiece.PieceType.KING))
+                | (Bitboards.rookAttacks(square, occupancy) & rooks)
+                | (Bitboards.bishopAttacks(square, occupancy) & bishops);
+    }
+
     /**
      * Gets team's king position
      *
@@ -45,16 +209,67 @@ public class ChessBoard {
      * @return The position of the King, or null, but that should never happen
      */
     public ChessPosition getKing(ChessGame.TeamColor teamColor) {
-        for (int i = 0; i < chessBoard.length; i++) {
-            for (int j = 0; j < chessBoard[i].length; j++) {
-                ChessPosition position = new ChessPosition(i + 1, j + 1);
-                ChessPiece piece = getPiece(position);
-                if (piece != null && piece.getTeamColor() == teamColor && piece.getPieceType() == ChessPiece.PieceType.KING) {
-                    return new ChessPosition(i + 1, j + 1);
-                }
-            }
+        int square = getKingSquare(teamColor);
+        return (square < 0) ? null : Bitboards.position(square);
+    }
+
+    /**
+     * Gets the square of a team's king, which is kept up to date as pieces are added
+     * and moved
+     *
+     * @param teamColor The team we want the King for
+     * @return the square index of the King, or -1 if the team has no King on the board
+     */
+    public int getKingSquare(ChessGame.TeamColor teamColor) {
+        syncMasks();
+        return kingSquares[teamColor.ordinal()];
+    }
+
+    /**
+     * Gets the positions of a team's pieces, found from the team's bitboard so only
+     * occupied squares are visited
+     *
+     * @param teamColor the team the pieces belong to
+     * @return positions of the team's pieces, in square order
+     */
+    public List<ChessPosition> getPiecePositions(ChessGame.TeamColor teamColor) {
+        long pieces = getOccupancy(teamColor);
+        List<ChessPosition> positions = new ArrayList<>(Long.bitCount(pieces));
+        while (pieces != 0) {
+            positions.add(Bitboards.position(Long.numberOfTrailingZeros(pieces)));
+            pieces &= pieces - 1;
         }
-        return null;
+        return positions;
+    }
+
+    /**
+     * Builds a board from the placement field of a FEN string, see Fen
+     */
+    public static ChessBoard fromFen(String placement) {
+        return Fen.parseBoard(placement);
+    }
+
+    /**
+     * @return the placement field of a FEN string for this board, see Fen
+     */
+    public String toFen() {
+        return Fen.formatBoard(this);
+    }
+
+    /**
+     * @return a copy of the piece bitboards, used to tell positions with the same key apart
+     */
+    long[] copyPieceMasks() {
+        syncMasks();
+        return pieceMasks.clone();
+    }
+
+    /**
+     * @return True if the board's piece bitboards match a copy taken with copyPieceMasks
+     */
+    boolean hasPieceMasks(long[] masks) {
+        syncMasks();
+        return Arrays.equals(pieceMasks, masks);
     }
 
     @Override
@@ -63,12 +278,15 @@ public class ChessBoard {
             return false;
         }
         ChessBoard that = (ChessBoard) o;
-        return Objects.deepEquals(chessBoard, that.chessBoard);
+        syncMasks();
+        that.syncMasks();
+        return zobristKey == that.zobristKey && Arrays.equals(pieceMasks, that.pieceMasks);
     }
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(chessBoard);
+        long key = getZobristKey();
+        return (int) (key ^ (key >>> 32));
     }
 
     /**
@@ -78,30 +296,53 @@ public class ChessBoard {
     public void resetBoard() {
         chessBoard = new ChessPiece[8][8];
 
-        chessBoard[0][0] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK);
-        chessBoard[0][1] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT);
-        chessBoard[0][2] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP);
-        chessBoard[0][3] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN);
-        chessBoard[0][4] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING);
-        chessBoard[0][5] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP);
-        chessBoard[0][6] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT);
-        chessBoard[0][7] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK);
-
         for (int i = 0; i < 8; i++) {
-            chessBoard[1][i] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
+            chessBoard[0][i] = ChessPiece.of(ChessGame.TeamColor.WHITE, BACK_RANK[i]);
+            chessBoard[1][i] = ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
+            chessBoard[6][i] = ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN);
+            chessBoard[7][i] = ChessPiece.of(ChessGame.TeamColor.BLACK, BACK_RANK[i]);
         }
+        rebuildMasks();
+    }
 
-        chessBoard[7][0] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK);
-        chessBoard[7][1] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT);
-        chessBoard[7][2] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP);
-        chessBoard[7][3] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN);
-        chessBoard[7][4] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING);
-        chessBoard[7][5] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP);
-        chessBoard[7][6] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT);
-        chessBoard[7][7] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK);
+    private static int maskIndex(ChessGame.TeamColor teamColor, ChessPiece.PieceType type) {
+        return teamColor.ordinal() * 6 + type.ordinal();
+    }
 
-        for (int i = 0; i < 8; i++) {
-            chessBoard[6][i] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN);
+    private void toggleMasks(ChessPiece piece, int square) {
+        long bit = 1L << square;
+        pieceMasks[maskIndex(piece.getTeamColor(), piece.getPieceType())] ^= bit;
+        colorMasks[piece.getTeamColor().ordinal()] ^= bit;
+        zobristKey ^= Zobrist.pieceKey(piece, square);
+        if (piece.getPieceType() == ChessPiece.PieceType.KING) {
+            // Falls back to any other king of the team when this one is taken off
+            long kings = pieceMasks[maskIndex(piece.getTeamColor(), ChessPiece.PieceType.KING)];
+            kingSquares[piece.getTeamColor().ordinal()] = ((kings & bit) != 0) ? square
+                    : (kings == 0) ? -1 : Long.numberOfTrailingZeros(kings);
+        }
+    }
+
+    private void syncMasks() {
+        if (maskedBoard != chessBoard) {
+            rebuildMasks();
+        }
+    }
+
+    private void rebuildMasks() {
+        pieceMasks = new long[12];
+        colorMasks = new long[2];
+        kingSquares = new int[]{-1, -1};
+        zobristKey = 0L;
+        for (int i = 0; i < chessBoard.length; i++) {
+            for (int j = 0; j < chessBoard[i].length; j++) {
+                ChessPiece piece = chessBoard[i][j];
+                if (piece != null) {
+                    // Deserialized grids have their own piece objects, swap in the shared ones
+                    chessBoard[i][j] = ChessPiece.of(piece.getTeamColor(), piece.getPieceType());
+                    toggleMasks(piece, i * 8 + j);
+                }
+            }
         }
+        maskedBoard = chessBoard;
     }
 }
@@ -0,0 +1,95 @@
+package chess;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Writes a board as the placement field of a FEN string, for example
+ * "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR".
+ * <p>
+ * Boards written before this adapter existed are objects holding the 8 by 8
+ * {@code chessBoard} grid of {@code {"pieceColor":...,"type":...}} pieces, and are still read.
+ */
+public class ChessBoardAdapter extends TypeAdapter<ChessBoard> {
+
+    @Override
+    public void write(JsonWriter out, ChessBoard board) throws IOException {
+        if (board == null) {
+            out.nullValue();
+            return;
+        }
+        out.value(Fen.formatBoard(board));
+    }
+
+    @Override
+    public ChessBoard read(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        if (token == JsonToken.STRING) {
+            try {
+                return Fen.parseBoard(in.nextString());
+            } catch (IllegalArgumentException e) {
+                throw new JsonParseException(e.getMessage(), e);
+            }
+        }
+        return readGrid(in);
+    }
+
+    private static ChessBoard readGrid(JsonReader in) throws IOException {
+        ChessBoard board = new ChessBoard();
+        in.beginObject();
+        while (in.hasNext()) {
+            if (!in.nextName().equals("chessBoard") || in.peek() == JsonToken.NULL) {
+                in.skipValue();
+                continue;
+            }
+
+            in.beginArray();
+            for (int row = 1; in.hasNext(); row++) {
+                in.beginArray();
+                for (int column = 1; in.hasNext(); column++) {
+                    ChessPiece piece = readPiece(in);
+                    if (piece != null) {
+                        board.addPiece(ChessPosition.of(row, column), piece);
+                    }
+                }
+                in.endArray();
+            }
+            in.endArray();
+        }
+        in.endObject();
+        return board;
+    }
+
+    private static ChessPiece readPiece(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        ChessGame.TeamColor color = null;
+        ChessPiece.PieceType type = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "pieceColor" -> color = ChessGame.TeamColor.valueOf(in.nextString());
+                case "type" -> type = ChessPiece.PieceType.valueOf(in.nextString());
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+
+        if (color == null || type == null) {
+            throw new JsonParseException("Piece needs a pieceColor and type at " + in.getPath());
+        }
+        return ChessPiece.of(color, type);
+    }
+}
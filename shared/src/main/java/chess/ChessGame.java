@@ -1,5 +1,7 @@
 package chess;
 
+import com.google.gson.annotations.JsonAdapter;
+
 import java.util.ArrayList;
 import java.util.Collection;
 
@@ -9,11 +11,27 @@ import java.util.Collection;
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
+@JsonAdapter(ChessGameAdapter.class)
 public class ChessGame {
 
     private TeamColor teamTurn;
     private ChessBoard chessBoard;
     private boolean gameOver = false;
+    // Moves made with makeMove, saved with the game so it survives a server restart
+    private int movesPlayed;
+
+    // Reused by the queries that only count or look for moves and never call out while generating
+    private transient LegalMoveGenerator generator = new LegalMoveGenerator();
+
+    // Legal destinations of the team to move, indexed by start square, for the position
+    // with key legalKey. Any change to the board or turn changes the key, which drops the table
+    private transient long[] legalTargets = new long[64];
+    private transient boolean legalTargetsValid;
+    private transient long legalKey;
+    private transient GameStatus status;
+
+    // Shared by every game in the process, or null to work every position out per game
+    private static volatile PositionCache positionCache;
 
     public ChessGame() {
         teamTurn = TeamColor.WHITE;
@@ -21,6 +39,19 @@ public class ChessGame {
         chessBoard.resetBoard();
     }
 
+    /**
+     * Creates a copy of a game, with its own board, that can be played on without
+     * affecting the original
+     *
+     * @param other the game to copy
+     */
+    public ChessGame(ChessGame other) {
+        teamTurn = other.teamTurn;
+        chessBoard = new ChessBoard(other.chessBoard);
+        gameOver = other.gameOver;
+        movesPlayed = other.movesPlayed;
+    }
+
     /**
      * @return Which team's turn it is
      */
@@ -37,10 +68,59 @@ public class ChessGame {
         teamTurn = team;
     }
 
+    /**
+     * Gets a key identifying the position, the pieces on the board and whose turn it is.
+     * The key is kept up to date as pieces are added and moved, so this is constant time
+     *
+     * @return 64-bit Zobrist key of the position
+     */
+    public long positionKey() {
+        return chessBoard.getZobristKey() ^ Zobrist.turnKey(teamTurn);
+    }
+
+    /**
+     * Builds a game from a FEN string, see Fen
+     *
+     * @param fen the position, at least the placement and side to move fields
+     * @return a new game set up in that position
+     */
+    public static ChessGame fromFen(String fen) {
+        return Fen.parse(fen);
+    }
+
+    /**
+     * @return the game as a FEN string, see Fen
+     */
+    public String toFen() {
+        return Fen.format(this);
+    }
+
+    /**
+     * Builds a game from its 37 byte encoding, see PositionCodec
+     */
+    public static ChessGame fromBytes(byte[] bytes) {
+        return PositionCodec.decode(bytes);
+    }
+
+    /**
+     * @return the game's position, turn, game over state and move count in 37 bytes, see PositionCodec
+     */
+    public byte[] toBytes() {
+        return PositionCodec.encode(this);
+    }
+
     public void setGameOver() {gameOver = true; }
 
     public boolean isGameOver() { return gameOver; }
 
+    /**
+     * @return number of moves made with makeMove over the life of the game, reversible
+     * moves are not counted
+     */
+    public int getMovesPlayed() { return movesPlayed; }
+
+    public void setMovesPlayed(int movesPlayed) { this.movesPlayed = movesPlayed; }
+
     /**
      * Enum identifying the 2 possible teams in a chess game
      */
@@ -49,6 +129,74 @@ public class ChessGame {
         BLACK
     }
 
+    /**
+     * The state of the game for the team whose turn it is
+     *
+     * @param teamTurn   the team to move
+     * @param check      whether the team to move is in check
+     * @param checkmate  whether the team to move is in checkmate
+     * @param stalemate  whether the team to move is in stalemate
+     * @param legalMoves number of legal moves the team to move has
+     */
+    public record GameStatus(TeamColor teamTurn, boolean check, boolean checkmate, boolean stalemate, int legalMoves) {}
+
+    /**
+     * Works out check, checkmate, stalemate and the number of legal moves for the team
+     * whose turn it is, all from one pass of the move generator. The result is kept until
+     * the position changes, so asking again before the next move costs nothing
+     *
+     * @return the status of the team to move
+     */
+    public GameStatus evaluateStatus() {
+        updateLegalTargets();
+        return status;
+    }
+
+    /**
+     * Fills the legal move table for the team to move, unless it is already filled
+     * for this position
+     */
+    private void updateLegalTargets() {
+        long key = positionKey();
+        if (legalTargetsValid && legalKey == key) {
+            return;
+        }
+
+        PositionCache cache = positionCache;
+        PositionCache.Entry entry = (cache == null) ? null : cache.get(key, chessBoard);
+        if (entry != null) {
+            System.arraycopy(entry.legalTargets, 0, legalTargets, 0, legalTargets.length);
+            status = entry.status;
+        } else {
+            generator.setPosition(chessBoard, teamTurn);
+            boolean check = generator.isInCheck();
+            int legalMoves = generator.fillTargets(legalTargets);
+            status = new GameStatus(teamTurn, check, check && legalMoves == 0, !check && legalMoves == 0, legalMoves);
+            if (cache != null) {
+                cache.put(key, chessBoard, legalTargets, status);
+            }
+        }
+        legalKey = key;
+        legalTargetsValid = true;
+    }
+
+    /**
+     * Sets the cache of legal move tables and statuses shared by every game, games look
+     * positions up there before working them out
+     *
+     * @param cache the cache to share, or null to stop sharing
+     */
+    public static void setPositionCache(PositionCache cache) {
+        positionCache = cache;
+    }
+
+    /**
+     * @return the cache shared by every game, or null if there is none
+     */
+    public static PositionCache getPositionCache() {
+        return positionCache;
+    }
+
     /**
      * Gets a valid moves for a piece at the given location
      *
@@ -58,14 +206,20 @@ public class ChessGame {
      */
     public Collection<ChessMove> validMoves(ChessPosition startPosition) {
         ChessPiece piece = chessBoard.getPiece(startPosition);
-        Collection<ChessMove> moves = piece.pieceMoves(chessBoard, startPosition);
-        Collection<ChessMove> validMoves = new ArrayList<>();
+        if (piece == null) {
+            return null;
+        }
 
-        for (ChessMove move : moves) {
-            if (isValidMove(move)) { validMoves.add(move); }
+        // The team to move is answered from the legal move table
+        if (piece.getTeamColor() == teamTurn) {
+            updateLegalTargets();
+            int square = Bitboards.square(startPosition);
+            return LegalMoveGenerator.toChessMoves(square, legalTargets[square],
+                    piece.getPieceType() == ChessPiece.PieceType.PAWN);
         }
 
-        return validMoves;
+        // Checks and pins are worked out once, so no move has to be tried on the board
+        return new LegalMoveGenerator(chessBoard, piece.getTeamColor()).movesFrom(startPosition);
     }
 
     /**
@@ -77,31 +231,55 @@ public class ChessGame {
     public boolean isValidMove(ChessMove move) {
         ChessPiece piece = chessBoard.getPiece(move.getStartPosition());
 
-        // Create a copy of the board
-        ChessGame tempGame = new ChessGame();
-        tempGame.setTeamTurn(getTeamTurn());
-        for (int i = 0; i < chessBoard.chessBoard.length; i++) {
-            for (int j = 0; j < chessBoard.chessBoard[i].length; j++) {
-                ChessPosition position = new ChessPosition(i + 1, j + 1);
-                ChessPiece newPiece = chessBoard.getPiece(position);
-                tempGame.chessBoard.addPiece(position, newPiece);
-            }
+        // Try the move on this board, and if it creates a check it is not valid
+        MoveUndo undo = makeReversibleMove(move);
+        try {
+            return !isInCheck(piece.getTeamColor());
+        } finally {
+            unmakeMove(undo);
         }
-
-        // Try the move in the new board, and if it creates a check return false
-        tempGame.makeTempMove(move);
-        return !tempGame.isInCheck(piece.getTeamColor());
     }
 
     /**
-     * Makes a move in a temp chess game, not important of whose turn it is
+     * Everything needed to take back a move made with makeReversibleMove
      *
-     * @param move temp chess move to preform
+     * @param move          the move that was made
+     * @param movedPiece    the piece that moved, before any promotion
+     * @param capturedPiece the piece that was on the end position, or null
+     * @param previousTurn  whose turn it was before the move
      */
-    public void makeTempMove(ChessMove move) {
+    public record MoveUndo(ChessMove move, ChessPiece movedPiece, ChessPiece capturedPiece, TeamColor previousTurn) {}
+
+    /**
+     * Makes a move without checking if it is valid, not important of whose turn it is.
+     * The move can be taken back with unmakeMove
+     *
+     * @param move chess move to preform
+     * @return record used to take the move back
+     */
+    public MoveUndo makeReversibleMove(ChessMove move) {
         ChessPiece piece = chessBoard.getPiece(move.getStartPosition());
+        MoveUndo undo = new MoveUndo(move, piece, chessBoard.getPiece(move.getEndPosition()), teamTurn);
+
+        ChessPiece.PieceType promotionType = move.getPromotionPiece();
+        ChessPiece endPiece = (promotionType == null) ? piece : ChessPiece.of(piece.getTeamColor(), promotionType);
+
         chessBoard.addPiece(move.getStartPosition(), null);
-        chessBoard.addPiece(move.getEndPosition(), piece);
+        chessBoard.addPiece(move.getEndPosition(), endPiece);
+        teamTurn = (piece.getTeamColor() == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
+        return undo;
+    }
+
+    /**
+     * Takes back a move made with makeReversibleMove, moves must be taken back in the
+     * reverse order they were made
+     *
+     * @param undo the record returned when the move was made
+     */
+    public void unmakeMove(MoveUndo undo) {
+        chessBoard.addPiece(undo.move().getEndPosition(), undo.capturedPiece());
+        chessBoard.addPiece(undo.move().getStartPosition(), undo.movedPiece());
+        teamTurn = undo.previousTurn();
     }
 
     /**
@@ -119,19 +297,41 @@ public class ChessGame {
         // If it is not the teams turns, throw exception
         if (getTeamTurn() != piece.getTeamColor()) { throw new InvalidMoveException("It is not your turn"); }
 
-        // Check if the move is included in the valid moves, if not throw exception
-        Collection<ChessMove> validMoves = validMoves(move.getStartPosition());
-        if (!validMoves.contains(move)) { throw new InvalidMoveException("Move is not valid, and might leave your king vulnerable"); }
+        // Check the move against the legal move table, if it is not there throw exception
+        if (!isLegalForTeamToMove(piece, move)) { throw new InvalidMoveException("Move is not valid, and might leave your king vulnerable"); }
 
-        // Handle piece promotion if necessary
+        // Handle piece promotion if necessary, the pawn is replaced rather than changed in place
+        // so the board's bitboards are updated for the right piece type
         ChessPiece.PieceType promotionType = move.getPromotionPiece();
         if (promotionType != null) {
-            piece.type = promotionType;
+            piece = ChessPiece.of(piece.getTeamColor(), promotionType);
         }
 
         chessBoard.addPiece(move.getStartPosition(), null);
         chessBoard.addPiece(move.getEndPosition(), piece);
         setTeamTurn((getTeamTurn() == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE);
+        movesPlayed++;
+    }
+
+    /**
+     * Looks a move of the team to move up in the legal move table, including whether it
+     * names a promotion exactly when it needs one
+     */
+    private boolean isLegalForTeamToMove(ChessPiece piece, ChessMove move) {
+        ChessPosition end = move.getEndPosition();
+        if (!end.inBounds()) {
+            return false;
+        }
+        updateLegalTargets();
+        if ((legalTargets[Bitboards.square(move.getStartPosition())] & (1L << Bitboards.square(end))) == 0) {
+            return false;
+        }
+
+        ChessPiece.PieceType promotion = move.getPromotionPiece();
+        if (piece.getPieceType() == ChessPiece.PieceType.PAWN && (end.getRow() == 1 || end.getRow() == 8)) {
+            return promotion != null && promotion != ChessPiece.PieceType.PAWN && promotion != ChessPiece.PieceType.KING;
+        }
+        return promotion == null;
     }
 
     /**
@@ -142,15 +342,10 @@ public class ChessGame {
      */
     public boolean isInCheck(TeamColor teamColor) {
         TeamColor enemy = (teamColor == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
-        ChessPosition kingPosition = chessBoard.getKing(teamColor);
-        Collection<ChessMove> enemyMoves = allPossibleMoves(enemy);
-
-        // if any possible move by the enemy team lands on the King, the team is in check
-        for (ChessMove enemyMove: enemyMoves) {
-            if (enemyMove.getEndPosition().equals(kingPosition)) { return true; }
-        }
+        int kingSquare = chessBoard.getKingSquare(teamColor);
 
-        return false;
+        // the team is in check if any enemy piece attacks the King
+        return kingSquare >= 0 && chessBoard.isSquareAttacked(kingSquare, enemy, chessBoard.getOccupancy());
     }
 
     /**
@@ -161,7 +356,7 @@ public class ChessGame {
      */
     public boolean isInCheckmate(TeamColor teamColor) {
         if (isInCheck(teamColor)) {
-            return allValidMoves(teamColor).isEmpty();
+            return !hasAnyLegalMove(teamColor);
         }
         return false;
     }
@@ -175,11 +370,47 @@ public class ChessGame {
      */
     public boolean isInStalemate(TeamColor teamColor) {
         if (!isInCheck(teamColor)) {
-            return allValidMoves(teamColor).isEmpty();
+            return !hasAnyLegalMove(teamColor);
         }
         return false;
     }
 
+    /**
+     * Hands every legal move for a team to a sink, one at a time, without building a
+     * collection. The sink can stop generation by returning false, and must not change
+     * the game while it is receiving moves
+     *
+     * @param teamColor the team to generate moves for
+     * @param sink      receives each move, packed as described in PackedMove
+     * @return true if every move was given to the sink, false if the sink stopped early
+     */
+    public boolean forEachLegalMove(TeamColor teamColor, MoveSink sink) {
+        // A sink may call back into this game, so it gets a generator of its own
+        return new LegalMoveGenerator(chessBoard, teamColor).generate(sink);
+    }
+
+    /**
+     * Counts a team's legal moves without building them
+     *
+     * @param teamColor the team to count moves for
+     * @return number of legal moves, with each promotion choice counted as a move
+     */
+    public int countLegalMoves(TeamColor teamColor) {
+        generator.setPosition(chessBoard, teamColor);
+        return generator.countMoves();
+    }
+
+    /**
+     * Determines if a team has any legal move, stopping at the first one found
+     *
+     * @param teamColor the team to look for a move for
+     * @return True if the team can move
+     */
+    public boolean hasAnyLegalMove(TeamColor teamColor) {
+        generator.setPosition(chessBoard, teamColor);
+        return generator.hasAnyMove();
+    }
+
     /**
      * Gets all valid moves for a team
      *
@@ -187,15 +418,7 @@ public class ChessGame {
      * @return Set of valid moves for requested team
      */
     public Collection<ChessMove> allValidMoves(ChessGame.TeamColor teamColor) {
-        ArrayList<ChessMove> allValidMoves = new ArrayList<>();
-
-        // Get all possible moves and if it is valid add to return collection
-        Collection<ChessMove> allPossibleMoves = allPossibleMoves(teamColor);
-        for (ChessMove move: allPossibleMoves) {
-            if (isValidMove(move)) { allValidMoves.add(move); }
-        }
-
-        return allValidMoves;
+        return new LegalMoveGenerator(chessBoard, teamColor).allMoves();
     }
 
     /**
@@ -207,16 +430,10 @@ public class ChessGame {
     public Collection<ChessMove> allPossibleMoves(ChessGame.TeamColor teamColor) {
         ArrayList<ChessMove> possibleMoves = new ArrayList<>();
 
-        // Iterate over every square and check for valid moves
-        for (int i = 0; i < chessBoard.chessBoard.length; i++) {
-            for (int j = 0; j < chessBoard.chessBoard[i].length; j++) {
-                ChessPosition position = new ChessPosition(i + 1, j + 1);
-                ChessPiece piece = chessBoard.getPiece(position);
-                if (piece != null && piece.getTeamColor() == teamColor) {
-                    Collection<ChessMove> pieceMoves = piece.pieceMoves(chessBoard, position);
-                    possibleMoves.addAll(pieceMoves);
-                }
-            }
+        // Only visit the squares holding one of the team's pieces
+        for (ChessPosition position : chessBoard.getPiecePositions(teamColor)) {
+            ChessPiece piece = chessBoard.getPiece(position);
+            possibleMoves.addAll(piece.pieceMoves(chessBoard, position));
         }
         return possibleMoves;
     }
@@ -0,0 +1,67 @@
+package chess;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Writes a game as an object with the same fields reflection used to write, but with the
+ * board written by ChessBoardAdapter, for example
+ * {@code {"teamTurn":"WHITE","chessBoard":"rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR","gameOver":false}}.
+ * The move count is only written once a move has been made. Games written before, with the
+ * board as a grid or without a move count, are still read.
+ */
+public class ChessGameAdapter extends TypeAdapter<ChessGame> {
+    private final ChessBoardAdapter boardAdapter = new ChessBoardAdapter();
+
+    @Override
+    public void write(JsonWriter out, ChessGame game) throws IOException {
+        if (game == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("teamTurn").value(game.getTeamTurn().name());
+        out.name("chessBoard");
+        boardAdapter.write(out, game.getBoard());
+        out.name("gameOver").value(game.isGameOver());
+        if (game.getMovesPlayed() > 0) {
+            out.name("movesPlayed").value(game.getMovesPlayed());
+        }
+        out.endObject();
+    }
+
+    @Override
+    public ChessGame read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        ChessGame game = new ChessGame();
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "teamTurn" -> game.setTeamTurn(ChessGame.TeamColor.valueOf(in.nextString()));
+                case "chessBoard" -> game.setBoard(boardAdapter.read(in));
+                case "gameOver" -> {
+                    if (in.nextBoolean()) {
+                        game.setGameOver();
+                    }
+                }
+                case "movesPlayed" -> game.setMovesPlayed(in.nextInt());
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        return game;
+    }
+}
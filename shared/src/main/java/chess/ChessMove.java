@@ -1,5 +1,7 @@
 package chess;
 
+import com.google.gson.annotations.JsonAdapter;
+
 import java.util.Objects;
 
 /**
@@ -8,10 +10,24 @@ import java.util.Objects;
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
+@JsonAdapter(ChessMoveAdapter.class)
 public class ChessMove {
     private final ChessPosition startPosition;
     private final ChessPosition endPosition;
     private final ChessPiece.PieceType promotionPiece;
+
+    // One shared move for every start and end square pair without a promotion,
+    // indexed by start square * 64 + end square
+    private static final ChessMove[] MOVES = new ChessMove[64 * 64];
+
+    static {
+        for (int from = 0; from < 64; from++) {
+            for (int to = 0; to < 64; to++) {
+                MOVES[from * 64 + to] = new ChessMove(Bitboards.position(from), Bitboards.position(to), null);
+            }
+        }
+    }
+
     public ChessMove(ChessPosition startPosition, ChessPosition endPosition,
                      ChessPiece.PieceType promotionPiece) {
         this.startPosition = startPosition;
@@ -19,6 +35,34 @@ public class ChessMove {
         this.promotionPiece = promotionPiece;
     }
 
+    /**
+     * Gets a move without creating one when it can come from the shared table, which holds
+     * every move between two squares on the board without a promotion
+     *
+     * @param startPosition  the starting position
+     * @param endPosition    the ending position
+     * @param promotionPiece the type to promote to, or null
+     * @return the move
+     */
+    public static ChessMove of(ChessPosition startPosition, ChessPosition endPosition,
+                               ChessPiece.PieceType promotionPiece) {
+        if (promotionPiece != null || !startPosition.inBounds() || !endPosition.inBounds()) {
+            return new ChessMove(startPosition, endPosition, promotionPiece);
+        }
+        return of(Bitboards.square(startPosition), Bitboards.square(endPosition));
+    }
+
+    /**
+     * Gets the shared move between two squares without a promotion
+     *
+     * @param from the start square index, see Bitboards
+     * @param to   the end square index
+     * @return the move
+     */
+    public static ChessMove of(int from, int to) {
+        return MOVES[from * 64 + to];
+    }
+
     /**
      * @return ChessPosition of starting location
      */
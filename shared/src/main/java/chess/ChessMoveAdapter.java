@@ -0,0 +1,171 @@
+package chess;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Writes a move as a coordinate string, the start and end squares followed by a
+ * promotion letter if there is one, for example "e2e4" or "a7a8q".
+ * <p>
+ * Moves written before this adapter existed are objects with {@code startPosition},
+ * {@code endPosition} and {@code promotionPiece}, and are still read. A move with a
+ * position off the board has no coordinate string, so it is written that way too.
+ */
+public class ChessMoveAdapter extends TypeAdapter<ChessMove> {
+
+    @Override
+    public void write(JsonWriter out, ChessMove move) throws IOException {
+        if (move == null) {
+            out.nullValue();
+            return;
+        }
+        if (move.getStartPosition() == null || move.getEndPosition() == null
+                || !move.getStartPosition().inBounds() || !move.getEndPosition().inBounds()) {
+            writeObject(out, move);
+            return;
+        }
+        out.value(toCoordinates(move));
+    }
+
+    @Override
+    public ChessMove read(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        if (token == JsonToken.STRING) {
+            return fromCoordinates(in.nextString());
+        }
+        return readObject(in);
+    }
+
+    /**
+     * @return the move as a coordinate string, for example "e2e4" or "a7a8q"
+     */
+    public static String toCoordinates(ChessMove move) {
+        StringBuilder coordinates = new StringBuilder(5);
+        appendSquare(coordinates, move.getStartPosition());
+        appendSquare(coordinates, move.getEndPosition());
+        if (move.getPromotionPiece() != null) {
+            coordinates.append(switch (move.getPromotionPiece()) {
+                case KING -> 'k';
+                case QUEEN -> 'q';
+                case BISHOP -> 'b';
+                case KNIGHT -> 'n';
+                case ROOK -> 'r';
+                case PAWN -> 'p';
+            });
+        }
+        return coordinates.toString();
+    }
+
+    /**
+     * @param coordinates a move written by toCoordinates
+     * @return the move
+     * @throws JsonParseException if the string is not a coordinate move
+     */
+    public static ChessMove fromCoordinates(String coordinates) {
+        if (coordinates.length() != 4 && coordinates.length() != 5) {
+            throw new JsonParseException("Move must look like e2e4 or a7a8q: " + coordinates);
+        }
+        ChessPosition start = parseSquare(coordinates, 0);
+        ChessPosition end = parseSquare(coordinates, 2);
+        if (coordinates.length() == 4) {
+            return ChessMove.of(start, end, null);
+        }
+
+        ChessPiece.PieceType promotion = switch (coordinates.charAt(4)) {
+            case 'k' -> ChessPiece.PieceType.KING;
+            case 'q' -> ChessPiece.PieceType.QUEEN;
+            case 'b' -> ChessPiece.PieceType.BISHOP;
+            case 'n' -> ChessPiece.PieceType.KNIGHT;
+            case 'r' -> ChessPiece.PieceType.ROOK;
+            case 'p' -> ChessPiece.PieceType.PAWN;
+            default -> throw new JsonParseException("Unknown promotion piece in move: " + coordinates);
+        };
+        return ChessMove.of(start, end, promotion);
+    }
+
+    private static void appendSquare(StringBuilder coordinates, ChessPosition position) {
+        coordinates.append((char) ('a' + position.getColumn() - 1)).append((char) ('0' + position.getRow()));
+    }
+
+    private static ChessPosition parseSquare(String coordinates, int index) {
+        int column = coordinates.charAt(index) - 'a' + 1;
+        int row = coordinates.charAt(index + 1) - '0';
+        if (column < 1 || column > 8 || row < 1 || row > 8) {
+            throw new JsonParseException("Move must look like e2e4 or a7a8q: " + coordinates);
+        }
+        return ChessPosition.of(row, column);
+    }
+
+    private static void writeObject(JsonWriter out, ChessMove move) throws IOException {
+        out.beginObject();
+        out.name("startPosition");
+        writePosition(out, move.getStartPosition());
+        out.name("endPosition");
+        writePosition(out, move.getEndPosition());
+        if (move.getPromotionPiece() != null) {
+            out.name("promotionPiece").value(move.getPromotionPiece().name());
+        }
+        out.endObject();
+    }
+
+    private static void writePosition(JsonWriter out, ChessPosition position) throws IOException {
+        if (position == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("row").value(position.getRow());
+        out.name("col").value(position.getColumn());
+        out.endObject();
+    }
+
+    private static ChessMove readObject(JsonReader in) throws IOException {
+        ChessPosition start = null;
+        ChessPosition end = null;
+        ChessPiece.PieceType promotion = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "startPosition" -> start = readPosition(in);
+                case "endPosition" -> end = readPosition(in);
+                case "promotionPiece" -> promotion = ChessPiece.PieceType.valueOf(in.nextString());
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+
+        if (start == null || end == null) {
+            return new ChessMove(start, end, promotion);
+        }
+        return ChessMove.of(start, end, promotion);
+    }
+
+    private static ChessPosition readPosition(JsonReader in) throws IOException {
+        int row = 0;
+        int column = 0;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "row" -> row = in.nextInt();
+                case "col" -> column = in.nextInt();
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        return ChessPosition.of(row, column);
+    }
+}
@@ -25,14 +25,37 @@ public class ChessPiece {
         return Objects.hash(pieceColor, type);
     }
 
-    ChessGame.TeamColor pieceColor;
-    PieceType type;
+    private final ChessGame.TeamColor pieceColor;
+    private final PieceType type;
+
+    // The one shared piece for each color and type, indexed by color * 6 + type
+    private static final ChessPiece[] PIECES = new ChessPiece[12];
+
+    static {
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (PieceType type : PieceType.values()) {
+                PIECES[color.ordinal() * 6 + type.ordinal()] = new ChessPiece(color, type);
+            }
+        }
+    }
 
     public ChessPiece(ChessGame.TeamColor pieceColor, ChessPiece.PieceType type) {
         this.pieceColor = pieceColor;
         this.type = type;
     }
 
+    /**
+     * Gets the shared piece for a color and type. Pieces cannot be changed, so one
+     * instance can sit on any number of boards
+     *
+     * @param pieceColor the team the piece belongs to
+     * @param type       the type of piece
+     * @return the shared piece
+     */
+    public static ChessPiece of(ChessGame.TeamColor pieceColor, ChessPiece.PieceType type) {
+        return PIECES[pieceColor.ordinal() * 6 + type.ordinal()];
+    }
+
     /**
      * The various different chess piece options
      */
@@ -28,11 +28,35 @@ public class ChessPosition {
 
     private final int col;
 
+    // One shared instance for each square on the board, indexed like Bitboards squares
+    private static final ChessPosition[] POSITIONS = new ChessPosition[64];
+
+    static {
+        for (int square = 0; square < POSITIONS.length; square++) {
+            POSITIONS[square] = new ChessPosition((square >>> 3) + 1, (square & 7) + 1);
+        }
+    }
+
     public ChessPosition(int row, int col) {
         this.row = row;
         this.col = col;
     }
 
+    /**
+     * Gets a position without creating one. Positions on the board come from a shared
+     * table, anything off the board is created as usual
+     *
+     * @param row the row, 1 codes for the bottom row
+     * @param col the column, 1 codes for the left column
+     * @return the position
+     */
+    public static ChessPosition of(int row, int col) {
+        if (row < 1 || row > 8 || col < 1 || col > 8) {
+            return new ChessPosition(row, col);
+        }
+        return POSITIONS[(row - 1) * 8 + (col - 1)];
+    }
+
     /**
      * @return which row this position is in
      * 1 codes for the bottom row
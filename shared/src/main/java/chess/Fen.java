@@ -0,0 +1,167 @@
+package chess;
+
+/**
+ * Reads and writes positions in Forsyth-Edwards Notation, for example
+ * "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1".
+ * <p>
+ * Piece placement, the side to move and the fullmove number are used. Games here do not
+ * track castling, en passant or the halfmove clock, so those fields are written as "- - 0".
+ * The fullmove number carries the game's move count: white to move after 2 * (n - 1) moves
+ * or black after one more. That is exact for any game played from the start or read from
+ * FEN. A game that is over gets an extra seventh field, "over", which is left off for games
+ * in progress so they stay plain FEN.
+ */
+public class Fen {
+
+    // Seventh field marking a game that is over
+    private static final String GAME_OVER = "over";
+
+    /**
+     * Builds a game from a FEN string
+     *
+     * @param fen the position, at least the placement and side to move fields
+     * @return a new game set up in that position
+     * @throws IllegalArgumentException if the string is not valid FEN
+     */
+    public static ChessGame parse(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        if (fields.length < 2) {
+            throw new IllegalArgumentException("FEN needs a placement and side to move: " + fen);
+        }
+
+        ChessGame game = new ChessGame();
+        game.setBoard(parseBoard(fields[0]));
+        game.setTeamTurn(switch (fields[1]) {
+            case "w" -> ChessGame.TeamColor.WHITE;
+            case "b" -> ChessGame.TeamColor.BLACK;
+            default -> throw new IllegalArgumentException("Unknown side to move: " + fields[1]);
+        });
+        if (fields.length > 5) {
+            game.setMovesPlayed(movesPlayed(fields[5], game.getTeamTurn()));
+        }
+        if (fields.length > 6 && fields[6].equals(GAME_OVER)) {
+            game.setGameOver();
+        }
+        return game;
+    }
+
+    /**
+     * Writes a game as a FEN string
+     *
+     * @param game the game to write
+     * @return the position, side to move, fullmove number and, if the game is over, the game over field
+     */
+    public static String format(ChessGame game) {
+        StringBuilder fen = new StringBuilder(formatBoard(game.getBoard()));
+        fen.append(game.getTeamTurn() == ChessGame.TeamColor.WHITE ? " w" : " b").append(" - - 0 ")
+                .append(fullmoveNumber(game));
+        if (game.isGameOver()) {
+            fen.append(' ').append(GAME_OVER);
+        }
+        return fen.toString();
+    }
+
+    /**
+     * Writes the placement field of a FEN string for a board, ranks 8 to 1 separated by '/'
+     */
+    public static String formatBoard(ChessBoard board) {
+        StringBuilder placement = new StringBuilder(71);
+        for (int row = 8; row >= 1; row--) {
+            int empty = 0;
+            for (int column = 1; column <= 8; column++) {
+                ChessPiece piece = board.getPiece(Bitboards.square(row, column));
+                if (piece == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    placement.append(empty);
+                    empty = 0;
+                }
+                placement.append(charFromPiece(piece));
+            }
+            if (empty > 0) {
+                placement.append(empty);
+            }
+            if (row > 1) {
+                placement.append('/');
+            }
+        }
+        return placement.toString();
+    }
+
+    /**
+     * Builds a board from the placement field of a FEN string, ranks 8 to 1 separated by '/'
+     */
+    public static ChessBoard parseBoard(String placement) {
+        ChessBoard board = new ChessBoard();
+        String[] ranks = placement.split("/");
+        if (ranks.length != 8) {
+            throw new IllegalArgumentException("FEN placement needs 8 ranks: " + placement);
+        }
+
+        for (int i = 0; i < 8; i++) {
+            int row = 8 - i;
+            int column = 1;
+            for (char c : ranks[i].toCharArray()) {
+                if (Character.isDigit(c)) {
+                    column += c - '0';
+                } else {
+                    if (column > 8) {
+                        throw new IllegalArgumentException("Too many squares in rank " + row + ": " + placement);
+                    }
+                    board.addPiece(ChessPosition.of(row, column), pieceFromChar(c));
+                    column++;
+                }
+            }
+            if (column != 9) {
+                throw new IllegalArgumentException("Rank " + row + " does not have 8 squares: " + placement);
+            }
+        }
+        return board;
+    }
+
+    private static int fullmoveNumber(ChessGame game) {
+        int blackMoved = (game.getTeamTurn() == ChessGame.TeamColor.BLACK) ? 1 : 0;
+        return Math.max(0, game.getMovesPlayed() - blackMoved) / 2 + 1;
+    }
+
+    private static int movesPlayed(String fullmove, ChessGame.TeamColor turn) {
+        int number;
+        try {
+            number = Integer.parseInt(fullmove);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Fullmove number is not a number: " + fullmove);
+        }
+        if (number < 1) {
+            throw new IllegalArgumentException("Fullmove number must be at least 1: " + fullmove);
+        }
+        return 2 * (number - 1) + ((turn == ChessGame.TeamColor.BLACK) ? 1 : 0);
+    }
+
+    private static ChessPiece pieceFromChar(char c) {
+        ChessGame.TeamColor color = Character.isUpperCase(c) ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+        ChessPiece.PieceType type = switch (Character.toLowerCase(c)) {
+            case 'k' -> ChessPiece.PieceType.KING;
+            case 'q' -> ChessPiece.PieceType.QUEEN;
+            case 'b' -> ChessPiece.PieceType.BISHOP;
+            case 'n' -> ChessPiece.PieceType.KNIGHT;
+            case 'r' -> ChessPiece.PieceType.ROOK;
+            case 'p' -> ChessPiece.PieceType.PAWN;
+            default -> throw new IllegalArgumentException("Unknown piece: " + c);
+        };
+        return ChessPiece.of(color, type);
+    }
+
+    private static char charFromPiece(ChessPiece piece) {
+        char c = switch (piece.getPieceType()) {
+            case KING -> 'k';
+            case QUEEN -> 'q';
+            case BISHOP -> 'b';
+            case KNIGHT -> 'n';
+            case ROOK -> 'r';
+            case PAWN -> 'p';
+        };
+        return (piece.getTeamColor() == ChessGame.TeamColor.WHITE) ? Character.toUpperCase(c) : c;
+    }
+}
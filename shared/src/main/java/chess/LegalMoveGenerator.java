@@ -0,0 +1,346 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Generates only legal moves for a team. Checks and pins are worked out once for the
+ * position, so no move has to be tried on the board to find out if it leaves the king
+ * in check.
+ * <p>
+ * Moves are written as packed ints (see PackedMove) into a MoveList or any other
+ * MoveSink. A generator can be pointed at a new position with setPosition, so the
+ * generator and the list can both be reused without allocating.
+ */
+public class LegalMoveGenerator {
+    // Pawns promote on the first and last rows
+    private static final long PROMOTION_ROWS = 0xFF000000000000FFL;
+
+    private static final ChessPiece.PieceType[] PROMOTIONS = {
+            ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.ROOK, ChessPiece.PieceType.KNIGHT
+    };
+
+    private ChessBoard board;
+    private ChessGame.TeamColor team;
+    private ChessGame.TeamColor enemy;
+    private long ownPieces;
+    private long enemyPieces;
+    private long occupancy;
+
+    // Square of the team's king, or -1 if the board has no king for the team
+    private int kingSquare;
+
+    // Enemy pieces giving check, and the squares a non-king move has to land on to answer it
+    private long checkers;
+    private long checkMask;
+
+    // Pieces that cannot leave the line between their king and the enemy piece pinning them
+    private long pinned;
+    private final long[] pinRays = new long[64];
+
+    public LegalMoveGenerator() {
+    }
+
+    public LegalMoveGenerator(ChessBoard board, ChessGame.TeamColor team) {
+        analyze(board, team);
+    }
+
+    /**
+     * Works out checks and pins for a team on a board, this has to be called again
+     * whenever the board changes
+     *
+     * @param board the board to generate moves on
+     * @param team  the team to generate moves for
+     */
+    public void setPosition(ChessBoard board, ChessGame.TeamColor team) {
+        analyze(board, team);
+    }
+
+    // Private so the constructor can use it without calling an overridable method
+    private void analyze(ChessBoard board, ChessGame.TeamColor team) {
+        this.board = board;
+        this.team = team;
+        this.enemy = (team == ChessGame.TeamColor.WHITE) ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        this.ownPieces = board.getOccupancy(team);
+        this.enemyPieces = board.getOccupancy(enemy);
+        this.occupancy = ownPieces | enemyPieces;
+        this.pinned = 0L;
+
+        kingSquare = board.getKingSquare(team);
+
+        if (kingSquare < 0) {
+            checkers = 0L;
+            checkMask = ~0L;
+            return;
+        }
+
+        checkers = board.getAttackers(kingSquare, enemy, occupancy);
+        if (checkers == 0) {
+            checkMask = ~0L;
+        } else if (Long.bitCount(checkers) == 1) {
+            int checker = Long.numberOfTrailingZeros(checkers);
+            checkMask = checkers | Bitboards.between(kingSquare, checker);
+        } else {
+            // Only the king can answer a double check
+            checkMask = 0L;
+        }
+
+        findPins();
+    }
+
+    /**
+     * @return True if the team's king is attacked
+     */
+    public boolean isInCheck() {
+        return checkers != 0;
+    }
+
+    /**
+     * Adds every legal move for the team to a list, or hands them to any other sink,
+     * stopping early if the sink asks to
+     *
+     * @param sink the list or sink to give packed moves to
+     * @return true if every move was given to the sink, false if the sink stopped early
+     */
+    public boolean generate(MoveSink sink) {
+        long pieces = ownPieces;
+        while (pieces != 0) {
+            int square = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            if (!addMoves(square, sink)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds every legal move for the piece on a square to a list, nothing is added if the
+     * team has no piece there
+     *
+     * @param square the square index of one of the team's pieces
+     * @param sink   the list or sink to give packed moves to
+     * @return true if every move was given to the sink, false if the sink stopped early
+     */
+    public boolean generateFrom(int square, MoveSink sink) {
+        if ((ownPieces & (1L << square)) != 0) {
+            return addMoves(square, sink);
+        }
+        return true;
+    }
+
+    /**
+     * Counts the team's legal moves from the destination bitboards, without building
+     * any moves. A pawn move to the last row counts once for each promotion
+     *
+     * @return number of legal moves
+     */
+    public int countMoves() {
+        int count = 0;
+        long pieces = ownPieces;
+        while (pieces != 0) {
+            int square = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            long targets = targets(square);
+            count += Long.bitCount(targets);
+            if ((board.getPieces(team, ChessPiece.PieceType.PAWN) & (1L << square)) != 0) {
+                count += 3 * Long.bitCount(targets & PROMOTION_ROWS);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Writes the legal destinations of every square into a table, the team's pieces get a
+     * bitboard of where they can move and every other square gets 0
+     *
+     * @param targetsBySquare table of 64 bitboards indexed by start square
+     * @return number of legal moves, with each promotion choice counted as a move
+     */
+    public int fillTargets(long[] targetsBySquare) {
+        Arrays.fill(targetsBySquare, 0L);
+        long pawns = board.getPieces(team, ChessPiece.PieceType.PAWN);
+        int count = 0;
+        long pieces = ownPieces;
+        while (pieces != 0) {
+            int square = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            long targets = targets(square);
+            targetsBySquare[square] = targets;
+            count += Long.bitCount(targets);
+            if ((pawns & (1L << square)) != 0) {
+                count += 3 * Long.bitCount(targets & PROMOTION_ROWS);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return True if the team has at least one legal move, stopping at the first piece that can move
+     */
+    public boolean hasAnyMove() {
+        // The king is checked first, since outside of a double check most positions have a king move
+        if (kingSquare >= 0 && kingTargets() != 0) {
+            return true;
+        }
+        long pieces = ownPieces;
+        while (pieces != 0) {
+            int square = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            if (square != kingSquare && targets(square) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return every legal move for the team
+     */
+    public Collection<ChessMove> allMoves() {
+        MoveList moves = new MoveList();
+        generate(moves);
+        return moves.toChessMoves();
+    }
+
+    /**
+     * @param position the position of one of the team's pieces
+     * @return every legal move for the piece, or an empty collection if the team has no piece there
+     */
+    public Collection<ChessMove> movesFrom(ChessPosition position) {
+        MoveList moves = new MoveList();
+        generateFrom(Bitboards.square(position), moves);
+        return moves.toChessMoves();
+    }
+
+    /**
+     * Builds the moves from a square to every square in a destination bitboard, such as
+     * one written by fillTargets. A pawn move to the first or last row becomes one move
+     * for each promotion
+     *
+     * @param square  the start square index
+     * @param targets bitboard of destinations
+     * @param pawn    whether the moving piece is a pawn
+     * @return the moves
+     */
+    public static Collection<ChessMove> toChessMoves(int square, long targets, boolean pawn) {
+        Collection<ChessMove> moves = new ArrayList<>(Long.bitCount(targets));
+        while (targets != 0) {
+            int target = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            if (!pawn || (PROMOTION_ROWS & (1L << target)) == 0) {
+                moves.add(ChessMove.of(square, target));
+                continue;
+            }
+            for (ChessPiece.PieceType promotion : PROMOTIONS) {
+                moves.add(new ChessMove(Bitboards.position(square), Bitboards.position(target), promotion));
+            }
+        }
+        return moves;
+    }
+
+    private boolean addMoves(int square, MoveSink sink) {
+        long targets = targets(square);
+        if (square != kingSquare && board.getPiece(square).getPieceType() == ChessPiece.PieceType.PAWN) {
+            return addPawnTargets(square, targets, sink);
+        }
+        return addTargets(square, targets, sink);
+    }
+
+    /**
+     * @return bitboard of the squares the piece on a square can legally move to
+     */
+    private long targets(int square) {
+        if (square == kingSquare) {
+            return kingTargets();
+        }
+
+        long targets = switch (board.getPiece(square).getPieceType()) {
+            case PAWN -> Bitboards.pawnPushes(square, team, ~occupancy)
+                    | (Bitboards.PAWN_ATTACKS[team.ordinal()][square] & enemyPieces);
+            case KNIGHT -> Bitboards.KNIGHT_ATTACKS[square];
+            case BISHOP -> Bitboards.bishopAttacks(square, occupancy);
+            case ROOK -> Bitboards.rookAttacks(square, occupancy);
+            case QUEEN -> Bitboards.queenAttacks(square, occupancy);
+            case KING -> Bitboards.KING_ATTACKS[square];
+        };
+        targets &= ~ownPieces & checkMask;
+        if ((pinned & (1L << square)) != 0) {
+            targets &= pinRays[square];
+        }
+        return targets;
+    }
+
+    /**
+     * King moves are legal when the destination is not attacked once the king has left its
+     * square, so the king is taken out of the occupancy before probing
+     */
+    private long kingTargets() {
+        long targets = Bitboards.KING_ATTACKS[kingSquare] & ~ownPieces;
+        long occupancyWithoutKing = occupancy & ~(1L << kingSquare);
+        long legal = 0L;
+        while (targets != 0) {
+            int target = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            if (!board.isSquareAttacked(target, enemy, occupancyWithoutKing)) {
+                legal |= 1L << target;
+            }
+        }
+        return legal;
+    }
+
+    /**
+     * Finds every piece that is the only thing standing between its king and an enemy
+     * rook, bishop or queen on the same line
+     */
+    private void findPins() {
+        long queens = board.getPieces(enemy, ChessPiece.PieceType.QUEEN);
+        long snipers = (Bitboards.rookAttacks(kingSquare, enemyPieces)
+                & (board.getPieces(enemy, ChessPiece.PieceType.ROOK) | queens))
+                | (Bitboards.bishopAttacks(kingSquare, enemyPieces)
+                & (board.getPieces(enemy, ChessPiece.PieceType.BISHOP) | queens));
+
+        while (snipers != 0) {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+            long between = Bitboards.between(kingSquare, sniper) & occupancy;
+            if (Long.bitCount(between) == 1 && (between & ownPieces) != 0) {
+                int pinnedSquare = Long.numberOfTrailingZeros(between);
+                pinned |= between;
+                pinRays[pinnedSquare] = Bitboards.between(kingSquare, sniper) | (1L << sniper);
+            }
+        }
+    }
+
+    private boolean addTargets(int square, long targets, MoveSink sink) {
+        while (targets != 0) {
+            int target = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            if (!sink.accept(PackedMove.encode(square, target, null, (enemyPieces & (1L << target)) != 0))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean addPawnTargets(int square, long targets, MoveSink sink) {
+        while (targets != 0) {
+            int target = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            boolean capture = (enemyPieces & (1L << target)) != 0;
+            if ((PROMOTION_ROWS & (1L << target)) == 0) {
+                if (!sink.accept(PackedMove.encode(square, target, null, capture))) {
+                    return false;
+                }
+                continue;
+            }
+            for (ChessPiece.PieceType promotion : PROMOTIONS) {
+                if (!sink.accept(PackedMove.encode(square, target, promotion, capture))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,15 @@
+package chess;
+
+/**
+ * Receives moves one at a time as they are generated, so callers that only look at
+ * the moves do not need a collection built for them
+ */
+@FunctionalInterface
+public interface MoveSink {
+
+    /**
+     * @param move the move, packed as described in PackedMove
+     * @return true to keep receiving moves, false to stop generating
+     */
+    boolean accept(int move);
+}
@@ -0,0 +1,68 @@
+package chess;
+
+/**
+ * Encodes a move in the low 16 bits of an int so move generation can work without
+ * allocating ChessMove objects.
+ * <p>
+ * Bits 0-5 hold the start square, bits 6-11 the end square, bits 12-14 the promotion
+ * piece (0 for none, otherwise PieceType ordinal + 1) and bit 15 is set for captures.
+ * Squares use the Bitboards indexing.
+ */
+public class PackedMove {
+
+    public static final int CAPTURE = 1 << 15;
+
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    public static int encode(int from, int to, ChessPiece.PieceType promotionPiece, boolean capture) {
+        int promotion = (promotionPiece == null) ? 0 : promotionPiece.ordinal() + 1;
+        return from | (to << 6) | (promotion << 12) | (capture ? CAPTURE : 0);
+    }
+
+    /**
+     * Packs a ChessMove, the capture flag is left unset since a move alone does not know
+     * what is on its end position
+     */
+    public static int encode(ChessMove move) {
+        return encode(Bitboards.square(move.getStartPosition()), Bitboards.square(move.getEndPosition()),
+                move.getPromotionPiece(), false);
+    }
+
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    /**
+     * @return the promotion piece, or null if the move is not a promotion
+     */
+    public static ChessPiece.PieceType promotion(int move) {
+        int promotion = (move >>> 12) & 7;
+        return (promotion == 0) ? null : TYPES[promotion - 1];
+    }
+
+    public static boolean isCapture(int move) {
+        return (move & CAPTURE) != 0;
+    }
+
+    /**
+     * @return true if two packed moves are the same move, ignoring flags
+     */
+    public static boolean sameMove(int move, int other) {
+        return (move & ~CAPTURE) == (other & ~CAPTURE);
+    }
+
+    /**
+     * Builds the public ChessMove view of a packed move
+     */
+    public static ChessMove toChessMove(int move) {
+        ChessPiece.PieceType promotion = promotion(move);
+        if (promotion == null) {
+            return ChessMove.of(from(move), to(move));
+        }
+        return new ChessMove(Bitboards.position(from(move)), Bitboards.position(to(move)), promotion);
+    }
+}
@@ -0,0 +1,169 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Runs perft divide across the threads of a ForkJoinPool. The root moves are split into
+ * tasks, and the first plies below them are split again so idle threads have work to steal
+ * even when a few root moves have much bigger trees than the rest.
+ * <p>
+ * Every task plays on its own copy of the game, so tasks never share a board, move
+ * generator or move list.
+ */
+public class ParallelPerft {
+
+    /**
+     * Number of plies, counting the root move, that are split into their own tasks.
+     * Below that a task counts its whole subtree with Perft on one thread
+     */
+    public static final int DEFAULT_SPLIT_PLIES = 2;
+
+    /**
+     * @param counts leaf nodes below each root move, in generation order
+     * @param total  all leaf nodes and the time the whole run took
+     */
+    public record Divide(Map<ChessMove, Long> counts, Perft.Result total) {}
+
+    /**
+     * Runs divide on a new pool with a thread for every available processor
+     *
+     * @param game  the position to count from, it is not changed
+     * @param depth number of plies to search, including the root move
+     * @return leaf nodes below each root move and the total
+     */
+    public static Divide divide(ChessGame game, int depth) {
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try {
+            return divide(game, depth, pool, DEFAULT_SPLIT_PLIES);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Runs divide on a given pool
+     *
+     * @param game       the position to count from, it is not changed
+     * @param depth      number of plies to search, including the root move
+     * @param pool       the pool to run the tasks on
+     * @param splitPlies number of plies that are split into their own tasks, at least 1
+     * @return leaf nodes below each root move and the total
+     */
+    public static Divide divide(ChessGame game, int depth, ForkJoinPool pool, int splitPlies) {
+        if (splitPlies < 1) {
+            throw new IllegalArgumentException("splitPlies must be at least 1");
+        }
+        long start = System.nanoTime();
+        Map<ChessMove, Long> counts = new LinkedHashMap<>();
+        if (depth > 0) {
+            List<ChessMove> rootMoves = new ArrayList<>(new LegalMoveGenerator(game.getBoard(), game.getTeamTurn()).allMoves());
+            List<Long> results = pool.invoke(new RootTask(new ChessGame(game), rootMoves, depth, splitPlies));
+            for (int i = 0; i < rootMoves.size(); i++) {
+                counts.put(rootMoves.get(i), results.get(i));
+            }
+        }
+        long nanos = System.nanoTime() - start;
+        long nodes = counts.values().stream().mapToLong(Long::longValue).sum();
+        return new Divide(counts, new Perft.Result(nodes, nanos));
+    }
+
+    /**
+     * Forks a subtree task for every root move and collects their counts in order
+     */
+    @SuppressWarnings("serial") // Tasks are never serialized, ForkJoinTask is only Serializable by inheritance
+    private static class RootTask extends RecursiveTask<List<Long>> {
+        private final ChessGame game;
+        private final List<ChessMove> moves;
+        private final int depth;
+        private final int splitPlies;
+
+        RootTask(ChessGame game, List<ChessMove> moves, int depth, int splitPlies) {
+            this.game = game;
+            this.moves = moves;
+            this.depth = depth;
+            this.splitPlies = splitPlies;
+        }
+
+        @Override
+        protected List<Long> compute() {
+            List<SubtreeTask> tasks = new ArrayList<>(moves.size());
+            for (ChessMove move : moves) {
+                tasks.add(new SubtreeTask(game, move, depth - 1, splitPlies - 1));
+            }
+            invokeAll(tasks);
+
+            List<Long> counts = new ArrayList<>(tasks.size());
+            for (SubtreeTask task : tasks) {
+                counts.add(task.join());
+            }
+            return counts;
+        }
+    }
+
+    /**
+     * Counts the leaf nodes below one move. The task makes its own copy of the parent game
+     * when it starts, so the parent can hand the same game to all of its children
+     */
+    @SuppressWarnings("serial") // Same as RootTask
+    private static class SubtreeTask extends RecursiveTask<Long> {
+        private final ChessGame parent;
+        private final ChessMove move;
+        private final int depth;
+        private final int splitPlies;
+
+        SubtreeTask(ChessGame parent, ChessMove move, int depth, int splitPlies) {
+            this.parent = parent;
+            this.move = move;
+            this.depth = depth;
+            this.splitPlies = splitPlies;
+        }
+
+        @Override
+        protected Long compute() {
+            if (depth == 0) {
+                return 1L;
+            }
+            ChessGame game = new ChessGame(parent);
+            game.makeReversibleMove(move);
+            if (splitPlies <= 0 || depth <= 2) {
+                return Perft.perft(game, depth);
+            }
+
+            List<SubtreeTask> tasks = new ArrayList<>();
+            for (ChessMove child : new LegalMoveGenerator(game.getBoard(), game.getTeamTurn()).allMoves()) {
+                tasks.add(new SubtreeTask(game, child, depth - 1, splitPlies - 1));
+            }
+            invokeAll(tasks);
+
+            long nodes = 0;
+            for (SubtreeTask task : tasks) {
+                nodes += task.join();
+            }
+            return nodes;
+        }
+    }
+
+    /**
+     * Runs parallel perft from the command line: {@code ParallelPerft <depth> [fen]}. Prints
+     * the count under each root move, the total and nodes per second. With no FEN the start
+     * position is used
+     */
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("Usage: ParallelPerft <depth> [fen]");
+            return;
+        }
+        int depth = Integer.parseInt(args[0]);
+        ChessGame game = (args.length > 1) ? Fen.parse(String.join(" ", List.of(args).subList(1, args.length)))
+                : new ChessGame();
+
+        Divide divide = divide(game, depth);
+        Perft.printDivide(divide.counts(), divide.total().nanos());
+        System.out.printf("Threads: %d%n", Runtime.getRuntime().availableProcessors());
+    }
+}
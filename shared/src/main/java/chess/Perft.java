@@ -0,0 +1,171 @@
+package chess;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Counts the leaf nodes of the legal move tree to a fixed depth. The counts for well known
+ * positions are published, so perft checks the move generator and gives a nodes per second
+ * number for it.
+ */
+public class Perft {
+
+    /**
+     * @param nodes number of leaf nodes counted
+     * @param nanos time it took
+     */
+    public record Result(long nodes, long nanos) {
+        public double nodesPerSecond() {
+            return (nanos == 0) ? 0 : nodes * 1_000_000_000.0 / nanos;
+        }
+    }
+
+    /**
+     * A position with a known node count. Games here have no castling or en passant, so
+     * only positions and depths where neither can come up are included
+     *
+     * @param name  short name of the position
+     * @param fen   the position in FEN
+     * @param depth depth to search
+     * @param nodes expected leaf nodes at that depth
+     */
+    public record Case(String name, String fen, int depth, long nodes) {}
+
+    public static final List<Case> REFERENCE_CASES = List.of(
+            new Case("start", "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1", 1, 20),
+            new Case("start", "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1", 2, 400),
+            new Case("start", "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1", 3, 8_902),
+            new Case("start", "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1", 4, 197_281),
+            new Case("position 3", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", 1, 14),
+            new Case("position 3", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", 2, 191),
+            new Case("promotions", "n1n5/PPPk4/8/8/8/8/4Kppp/5N1N b - - 0 1", 1, 24),
+            new Case("promotions", "n1n5/PPPk4/8/8/8/8/4Kppp/5N1N b - - 0 1", 2, 496),
+            new Case("promotions", "n1n5/PPPk4/8/8/8/8/4Kppp/5N1N b - - 0 1", 3, 9_483),
+            new Case("promotions", "n1n5/PPPk4/8/8/8/8/4Kppp/5N1N b - - 0 1", 4, 182_838),
+            new Case("promotions", "n1n5/PPPk4/8/8/8/8/4Kppp/5N1N b - - 0 1", 5, 3_605_103),
+            new Case("discovered check", "8/8/1P2K3/8/2n5/1q6/8/5k2 b - - 0 1", 5, 1_004_658),
+            new Case("promote out of check", "2K2r2/4P3/8/8/8/8/8/3k4 w - - 0 1", 6, 3_821_001),
+            new Case("underpromote to check", "4k3/1P6/8/8/8/8/K7/8 w - - 0 1", 6, 217_342),
+            new Case("promote to give check", "8/P1k5/K7/8/8/8/8/8 w - - 0 1", 6, 92_683),
+            new Case("self stalemate", "K1k5/8/P7/8/8/8/8/8 w - - 0 1", 6, 2_217),
+            new Case("stalemate and checkmate", "8/k1P5/8/1K6/8/8/8/8 w - - 0 1", 7, 567_584),
+            new Case("double check", "8/8/2k5/5q2/5n2/8/5K2/8 b - - 0 1", 4, 23_527)
+    );
+
+    /**
+     * Counts leaf nodes from the game's position, with the team whose turn it is to move.
+     * The game is played forward and back while counting, and is left as it was
+     *
+     * @param game  the position to count from
+     * @param depth number of plies to search
+     * @return number of leaf nodes
+     */
+    public static long perft(ChessGame game, int depth) {
+        if (depth <= 0) {
+            return 1;
+        }
+        return perft(game, depth, new LegalMoveGenerator(), newMoveLists(depth));
+    }
+
+    /**
+     * Runs perft and times it
+     */
+    public static Result run(ChessGame game, int depth) {
+        long start = System.nanoTime();
+        long nodes = perft(game, depth);
+        return new Result(nodes, System.nanoTime() - start);
+    }
+
+    /**
+     * Counts leaf nodes separately below every legal move of the root position, which
+     * helps narrow down which move a wrong count comes from
+     *
+     * @param game  the position to count from
+     * @param depth number of plies to search, including the root move
+     * @return leaf nodes below each root move, in generation order
+     */
+    public static Map<ChessMove, Long> divide(ChessGame game, int depth) {
+        Map<ChessMove, Long> counts = new LinkedHashMap<>();
+        LegalMoveGenerator generator = new LegalMoveGenerator();
+        MoveList[] moveLists = newMoveLists(depth);
+
+        MoveList rootMoves = new MoveList();
+        generator.setPosition(game.getBoard(), game.getTeamTurn());
+        generator.generate(rootMoves);
+        for (int i = 0; i < rootMoves.size(); i++) {
+            ChessMove move = PackedMove.toChessMove(rootMoves.get(i));
+            ChessGame.MoveUndo undo = game.makeReversibleMove(move);
+            counts.put(move, (depth <= 1) ? 1 : perft(game, depth - 1, generator, moveLists));
+            game.unmakeMove(undo);
+        }
+        return counts;
+    }
+
+    private static long perft(ChessGame game, int depth, LegalMoveGenerator generator, MoveList[] moveLists) {
+        MoveList moves = moveLists[depth];
+        moves.clear();
+        generator.setPosition(game.getBoard(), game.getTeamTurn());
+        generator.generate(moves);
+
+        // Leaf moves only need counting, not playing
+        if (depth == 1) {
+            return moves.size();
+        }
+
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            ChessGame.MoveUndo undo = game.makeReversibleMove(PackedMove.toChessMove(moves.get(i)));
+            nodes += perft(game, depth - 1, generator, moveLists);
+            game.unmakeMove(undo);
+        }
+        return nodes;
+    }
+
+    private static MoveList[] newMoveLists(int depth) {
+        MoveList[] moveLists = new MoveList[depth + 1];
+        for (int i = 0; i < moveLists.length; i++) {
+            moveLists[i] = new MoveList();
+        }
+        return moveLists;
+    }
+
+    /**
+     * Runs perft from the command line: {@code Perft <depth> [fen]}. Prints the count under
+     * each root move, the total and nodes per second. With no FEN the start position is used
+     */
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("Usage: Perft <depth> [fen]");
+            return;
+        }
+        int depth = Integer.parseInt(args[0]);
+        ChessGame game = (args.length > 1) ? Fen.parse(String.join(" ", List.of(args).subList(1, args.length)))
+                : new ChessGame();
+
+        long start = System.nanoTime();
+        Map<ChessMove, Long> counts = divide(game, depth);
+        printDivide(counts, System.nanoTime() - start);
+    }
+
+    /**
+     * Prints the count under each root move, then the total, time and nodes per second
+     */
+    static void printDivide(Map<ChessMove, Long> counts, long nanos) {
+        long total = 0;
+        for (Map.Entry<ChessMove, Long> entry : counts.entrySet()) {
+            ChessMove move = entry.getKey();
+            String promotion = (move.getPromotionPiece() == null) ? "" : move.getPromotionPiece().name().substring(0, 1);
+            System.out.printf("%s%s%s: %d%n", squareName(move.getStartPosition()), squareName(move.getEndPosition()),
+                    promotion.toLowerCase(), entry.getValue());
+            total += entry.getValue();
+        }
+        Result result = new Result(total, nanos);
+        System.out.printf("%nNodes: %d%nTime: %.3f s%nNodes/sec: %.0f%n", result.nodes(), result.nanos() / 1e9,
+                result.nodesPerSecond());
+    }
+
+    private static String squareName(ChessPosition position) {
+        return "" + (char) ('a' + position.getColumn() - 1) + position.getRow();
+    }
+}
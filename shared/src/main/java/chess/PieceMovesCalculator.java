@@ -16,34 +16,20 @@ class PawnMovesCalculator implements PieceMovesCalculator {
     public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition position) {
         Collection<ChessMove> chessMoves = new ArrayList<>();
 
-        int row = position.getRow();
-        int column = position.getColumn();
-
         ChessGame.TeamColor black = ChessGame.TeamColor.BLACK;
         ChessGame.TeamColor white = ChessGame.TeamColor.WHITE;
 
-        int direction = (board.getPiece(position).pieceColor == white) ? 1 : -1;
-        ChessGame.TeamColor enemy = (board.getPiece(position).pieceColor == white) ? black : white;
+        ChessGame.TeamColor team = board.getPiece(position).getTeamColor();
+        ChessGame.TeamColor enemy = (team == white) ? black : white;
+        int square = Bitboards.square(position);
 
-        ChessPosition forward = new ChessPosition(row + direction, column);
-        ChessPosition twoForward = new ChessPosition(row + 2 * direction, column);
-        ChessPosition rightDiag = new ChessPosition(row + direction, column + direction);
-        ChessPosition leftDiag = new ChessPosition(row + direction, column - direction);
+        long targets = Bitboards.pawnPushes(square, team, ~board.getOccupancy());
+        targets |= Bitboards.PAWN_ATTACKS[team.ordinal()][square] & board.getOccupancy(enemy);
 
-        if (forward.inBounds()) {
-            if (board.getPiece(forward) == null) {
-                getPawnPromotions(position, chessMoves, forward);
-                if ((row == 2 || row == 7) && twoForward.inBounds() && board.getPiece(twoForward) == null) {
-                    // Two Forward
-                    chessMoves.add(new ChessMove(position, twoForward, null));
-                }
-            }
-        }
-        if (leftDiag.inBounds() && board.getPiece(leftDiag) != null && board.getPiece(leftDiag).pieceColor == enemy) {
-            getPawnPromotions(position, chessMoves, leftDiag);
-        }
-        if (rightDiag.inBounds() && board.getPiece(rightDiag) != null && board.getPiece(rightDiag).pieceColor == enemy) {
-            getPawnPromotions(position, chessMoves, rightDiag);
+        while (targets != 0) {
+            int target = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            getPawnPromotions(position, chessMoves, Bitboards.position(target));
         }
         return chessMoves;
 
@@ -66,7 +52,7 @@ class PawnMovesCalculator implements PieceMovesCalculator {
         }
         else {
             // Move
-            chessMoves.add(new ChessMove(position, newPosition, null));
+            chessMoves.add(ChessMove.of(position, newPosition, null));
         }
     }
 }
@@ -76,15 +62,11 @@ class PawnMovesCalculator implements PieceMovesCalculator {
  * king moves
  */
 class KingMovesCalculator implements PieceMovesCalculator {
-    private static final int[][] MOVES = {
-            {1, 0}, {1, 1}, {0, 1}, {-1, -1},
-            {0, -1}, {-1, 1}, {-1, 0}, {1, -1}
-    };
-
     @Override
     public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition position) {
-        ChessGame.TeamColor team = board.getPiece(position).pieceColor;
-        return ChessMoveUtils.calculateFixedRangeMoves(board, position, MOVES, team);
+        ChessGame.TeamColor team = board.getPiece(position).getTeamColor();
+        long targets = Bitboards.KING_ATTACKS[Bitboards.square(position)] & ChessMoveUtils.notOwnPieces(board, team);
+        return ChessMoveUtils.movesToTargets(position, targets);
     }
 }
 
@@ -93,14 +75,12 @@ class KingMovesCalculator implements PieceMovesCalculator {
  * bishop moves
  */
 class BishopMovesCalculator implements PieceMovesCalculator {
-    private static final int[][] DIRECTIONS = {
-            {1, 1}, {1, -1}, {-1, 1}, {-1, -1} // Diagonal directions
-    };
-
     @Override
     public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition position) {
-        ChessGame.TeamColor team = board.getPiece(position).pieceColor;
-        return ChessMoveUtils.calculateDirectionalMoves(board, position, DIRECTIONS, team);
+        ChessGame.TeamColor team = board.getPiece(position).getTeamColor();
+        long targets = Bitboards.bishopAttacks(Bitboards.square(position), board.getOccupancy())
+                & ChessMoveUtils.notOwnPieces(board, team);
+        return ChessMoveUtils.movesToTargets(position, targets);
     }
 }
 
@@ -109,15 +89,12 @@ class BishopMovesCalculator implements PieceMovesCalculator {
  * queen moves
  */
 class QueenMovesCalculator implements PieceMovesCalculator {
-    private static final int[][] DIRECTIONS = {
-            {1, 0}, {-1, 0}, {0, 1}, {0, -1},  // Vertical and horizontal
-            {1, 1}, {1, -1}, {-1, 1}, {-1, -1} // Diagonal
-    };
-
     @Override
     public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition position) {
-        ChessGame.TeamColor team = board.getPiece(position).pieceColor;
-        return ChessMoveUtils.calculateDirectionalMoves(board, position, DIRECTIONS, team);
+        ChessGame.TeamColor team = board.getPiece(position).getTeamColor();
+        long targets = Bitboards.queenAttacks(Bitboards.square(position), board.getOccupancy())
+                & ChessMoveUtils.notOwnPieces(board, team);
+        return ChessMoveUtils.movesToTargets(position, targets);
     }
 }
 
@@ -126,14 +103,12 @@ class QueenMovesCalculator implements PieceMovesCalculator {
  * rook moves
  */
 class RookMovesCalculator implements PieceMovesCalculator {
-    private static final int[][] DIRECTIONS = {
-            {1, 0}, {-1, 0}, {0, 1}, {0, -1} // Vertical and horizontal directions
-    };
-
     @Override
     public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition position) {
-        ChessGame.TeamColor team = board.getPiece(position).pieceColor;
-        return ChessMoveUtils.calculateDirectionalMoves(board, position, DIRECTIONS, team);
+        ChessGame.TeamColor team = board.getPiece(position).getTeamColor();
+        long targets = Bitboards.rookAttacks(Bitboards.square(position), board.getOccupancy())
+                & ChessMoveUtils.notOwnPieces(board, team);
+        return ChessMoveUtils.movesToTargets(position, targets);
     }
 }
 
@@ -142,15 +117,11 @@ class RookMovesCalculator implements PieceMovesCalculator {
  * knight moves
  */
 class KnightMovesCalculator implements PieceMovesCalculator {
-    private static final int[][] MOVES = {
-            {2, 1}, {2, -1}, {1, 2}, {1, -2},
-            {-2, 1}, {-2, -1}, {-1, 2}, {-1, -2}
-    };
-
     @Override
     public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition position) {
-        ChessGame.TeamColor team = board.getPiece(position).pieceColor;
-        return ChessMoveUtils.calculateFixedRangeMoves(board, position, MOVES, team);
+        ChessGame.TeamColor team = board.getPiece(position).getTeamColor();
+        long targets = Bitboards.KNIGHT_ATTACKS[Bitboards.square(position)] & ChessMoveUtils.notOwnPieces(board, team);
+        return ChessMoveUtils.movesToTargets(position, targets);
     }
 }
 
@@ -0,0 +1,132 @@
+package chess;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of legal move tables and statuses keyed by position, meant to be shared
+ * by every game in a process so positions many games reach, like openings, are only
+ * worked out once.
+ * <p>
+ * Lookups are lock free. When the cache is full a new entry replaces one picked with the
+ * CLOCK algorithm: the hand sweeps the slots, clearing the referenced flag of entries that
+ * were looked up since it last passed and evicting the first one that was not.
+ */
+public class PositionCache {
+
+    /**
+     * A cached position. The board's piece bitboards are kept with the key so a Zobrist
+     * collision can never hand one position's moves to another
+     */
+    static final class Entry {
+        final long key;
+        final long[] pieceMasks;
+        final long[] legalTargets;
+        final ChessGame.GameStatus status;
+        volatile boolean referenced;
+
+        Entry(long key, long[] pieceMasks, long[] legalTargets, ChessGame.GameStatus status) {
+            this.key = key;
+            this.pieceMasks = pieceMasks;
+            this.legalTargets = legalTargets;
+            this.status = status;
+        }
+    }
+
+    /**
+     * @param hits      lookups that found their position
+     * @param misses    lookups that did not
+     * @param evictions entries dropped to make room
+     * @param size      entries held right now
+     * @param capacity  most entries the cache holds
+     */
+    public record Stats(long hits, long misses, long evictions, int size, int capacity) {
+        public double hitRate() {
+            long lookups = hits + misses;
+            return (lookups == 0) ? 0 : (double) hits / lookups;
+        }
+    }
+
+    private final int capacity;
+    private final ConcurrentHashMap<Long, Entry> entries;
+    private final Entry[] slots;
+    private int hand;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param capacity most positions to hold, at least 1
+     */
+    public PositionCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+        this.capacity = capacity;
+        this.entries = new ConcurrentHashMap<>(capacity * 4 / 3 + 1);
+        this.slots = new Entry[capacity];
+    }
+
+    /**
+     * Looks up a position
+     *
+     * @param key   the position key, see ChessGame.positionKey
+     * @param board the board of the position, compared against the entry found
+     * @return the entry, or null if the position is not cached
+     */
+    Entry get(long key, ChessBoard board) {
+        Entry entry = entries.get(key);
+        if (entry == null || !board.hasPieceMasks(entry.pieceMasks)) {
+            misses.increment();
+            return null;
+        }
+        entry.referenced = true;
+        hits.increment();
+        return entry;
+    }
+
+    /**
+     * Adds a position, the arrays are copied so the caller can keep using its own
+     *
+     * @param key          the position key
+     * @param board        the board of the position
+     * @param legalTargets legal destinations of the team to move, indexed by start square
+     * @param status       the status of the team to move
+     */
+    void put(long key, ChessBoard board, long[] legalTargets, ChessGame.GameStatus status) {
+        Entry entry = new Entry(key, board.copyPieceMasks(), legalTargets.clone(), status);
+        synchronized (slots) {
+            if (entries.containsKey(key)) {
+                return;
+            }
+            while (slots[hand] != null && slots[hand].referenced) {
+                slots[hand].referenced = false;
+                hand = (hand + 1) % capacity;
+            }
+            if (slots[hand] != null) {
+                entries.remove(slots[hand].key, slots[hand]);
+                evictions.increment();
+            }
+            slots[hand] = entry;
+            entries.put(key, entry);
+            hand = (hand + 1) % capacity;
+        }
+    }
+
+    /**
+     * Drops every entry, the counters are kept
+     */
+    public void clear() {
+        synchronized (slots) {
+            entries.clear();
+            Arrays.fill(slots, null);
+            hand = 0;
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), entries.size(), capacity);
+    }
+}
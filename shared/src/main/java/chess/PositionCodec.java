@@ -0,0 +1,116 @@
+package chess;
+
+/**
+ * Encodes a game's position into a fixed 37 bytes and back.
+ * <p>
+ * The first 32 bytes hold one 4-bit code per square, a1 to h8 with the even square of
+ * each pair in the low nibble. Code 0 is an empty square and codes 1 to 12 are
+ * color * 6 + piece type + 1. Byte 32 holds flags: bit 0 is set when black is to move and
+ * bit 1 when the game is over. The last 4 bytes hold the game's move count, big-endian.
+ */
+public class PositionCodec {
+    public static final int SIZE = 37;
+
+    private static final int BLACK_TO_MOVE = 1;
+    private static final int GAME_OVER = 1 << 1;
+
+    private static final ChessGame.TeamColor[] COLORS = ChessGame.TeamColor.values();
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    /**
+     * @param game the game to encode
+     * @return a new array of SIZE bytes
+     */
+    public static byte[] encode(ChessGame game) {
+        byte[] bytes = new byte[SIZE];
+        encode(game, bytes, 0);
+        return bytes;
+    }
+
+    /**
+     * Encodes a game into an existing array
+     *
+     * @param game   the game to encode
+     * @param bytes  the array to write to
+     * @param offset where in the array to start, SIZE bytes are written
+     */
+    public static void encode(ChessGame game, byte[] bytes, int offset) {
+        ChessBoard board = game.getBoard();
+        for (int square = 0; square < 64; square += 2) {
+            bytes[offset + (square >>> 1)] = (byte) (code(board.getPiece(square)) | (code(board.getPiece(square + 1)) << 4));
+        }
+
+        int flags = 0;
+        if (game.getTeamTurn() == ChessGame.TeamColor.BLACK) {
+            flags |= BLACK_TO_MOVE;
+        }
+        if (game.isGameOver()) {
+            flags |= GAME_OVER;
+        }
+        bytes[offset + 32] = (byte) flags;
+
+        int movesPlayed = game.getMovesPlayed();
+        for (int i = 0; i < 4; i++) {
+            bytes[offset + 33 + i] = (byte) (movesPlayed >>> (24 - 8 * i));
+        }
+    }
+
+    /**
+     * @param bytes an array of SIZE bytes written by encode
+     * @return a new game in the encoded position
+     * @throws IllegalArgumentException if the array is the wrong size or holds an unknown code
+     */
+    public static ChessGame decode(byte[] bytes) {
+        if (bytes.length != SIZE) {
+            throw new IllegalArgumentException("Encoded position must be " + SIZE + " bytes, got " + bytes.length);
+        }
+        return decode(bytes, 0);
+    }
+
+    /**
+     * Decodes a game from part of an array
+     *
+     * @param bytes  the array to read from
+     * @param offset where the SIZE encoded bytes start
+     * @return a new game in the encoded position
+     * @throws IllegalArgumentException if the bytes hold an unknown code
+     */
+    public static ChessGame decode(byte[] bytes, int offset) {
+        ChessBoard board = new ChessBoard();
+        for (int square = 0; square < 64; square++) {
+            int code = (bytes[offset + (square >>> 1)] >>> ((square & 1) * 4)) & 0xF;
+            if (code != 0) {
+                board.addPiece(Bitboards.position(square), piece(code));
+            }
+        }
+
+        int flags = bytes[offset + 32];
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        game.setTeamTurn(((flags & BLACK_TO_MOVE) != 0) ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE);
+        if ((flags & GAME_OVER) != 0) {
+            game.setGameOver();
+        }
+
+        int movesPlayed = 0;
+        for (int i = 0; i < 4; i++) {
+            movesPlayed = (movesPlayed << 8) | (bytes[offset + 33 + i] & 0xFF);
+        }
+        game.setMovesPlayed(movesPlayed);
+        return game;
+    }
+
+    private static int code(ChessPiece piece) {
+        if (piece == null) {
+            return 0;
+        }
+        return piece.getTeamColor().ordinal() * 6 + piece.getPieceType().ordinal() + 1;
+    }
+
+    private static ChessPiece piece(int code) {
+        if (code > 12) {
+            throw new IllegalArgumentException("Unknown piece code: " + code);
+        }
+        return ChessPiece.of(COLORS[(code - 1) / 6], TYPES[(code - 1) % 6]);
+    }
+}
@@ -0,0 +1,41 @@
+package chess;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random keys for Zobrist hashing. A position's key is the XOR of the key for every
+ * piece on its square, plus the side key when it is black's turn, so adding, removing
+ * or moving a piece only takes an XOR or two to update.
+ */
+public class Zobrist {
+
+    // Fixed seed so keys, and anything stored under them, are the same in every run
+    private static final long SEED = 0x5DEECE66DL;
+
+    private static final long[][] PIECE_KEYS = new long[12][64];
+    public static final long SIDE_KEY;
+
+    static {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (long[] keys : PIECE_KEYS) {
+            for (int square = 0; square < 64; square++) {
+                keys[square] = random.nextLong();
+            }
+        }
+        SIDE_KEY = random.nextLong();
+    }
+
+    /**
+     * @return the key for a piece standing on a square
+     */
+    public static long pieceKey(ChessPiece piece, int square) {
+        return PIECE_KEYS[piece.getTeamColor().ordinal() * 6 + piece.getPieceType().ordinal()][square];
+    }
+
+    /**
+     * @return the key to XOR in when it is the given team's turn
+     */
+    public static long turnKey(ChessGame.TeamColor teamTurn) {
+        return (teamTurn == ChessGame.TeamColor.BLACK) ? SIDE_KEY : 0L;
+    }
+}
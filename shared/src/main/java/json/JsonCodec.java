@@ -0,0 +1,91 @@
+package json;
+
+import com.google.gson.Gson;
+
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The one Gson instance shared by the server and client. Gson is thread safe and caches
+ * the adapter it builds for each type, so sharing one instance means that work is done
+ * once per type instead of once per message.
+ * <p>
+ * Every call is counted and timed, see stats.
+ */
+public class JsonCodec {
+    // The chess types pick their adapters with @JsonAdapter, so a plain instance writes them compactly
+    private static final Gson GSON = new Gson();
+
+    private static final LongAdder ENCODES = new LongAdder();
+    private static final LongAdder ENCODE_NANOS = new LongAdder();
+    private static final LongAdder DECODES = new LongAdder();
+    private static final LongAdder DECODE_NANOS = new LongAdder();
+
+    /**
+     * @param encodes     number of values written to JSON
+     * @param encodeNanos total time spent writing them
+     * @param decodes     number of values read from JSON
+     * @param decodeNanos total time spent reading them
+     */
+    public record Stats(long encodes, long encodeNanos, long decodes, long decodeNanos) {
+        public double averageEncodeMicros() {
+            return (encodes == 0) ? 0 : encodeNanos / 1_000.0 / encodes;
+        }
+
+        public double averageDecodeMicros() {
+            return (decodes == 0) ? 0 : decodeNanos / 1_000.0 / decodes;
+        }
+    }
+
+    /**
+     * @return the shared Gson instance, for callers that need more than the methods here
+     */
+    public static Gson gson() {
+        return GSON;
+    }
+
+    public static String toJson(Object value) {
+        long start = System.nanoTime();
+        try {
+            return GSON.toJson(value);
+        } finally {
+            ENCODES.increment();
+            ENCODE_NANOS.add(System.nanoTime() - start);
+        }
+    }
+
+    public static <T> T fromJson(String json, Class<T> type) {
+        long start = System.nanoTime();
+        try {
+            return GSON.fromJson(json, type);
+        } finally {
+            DECODES.increment();
+            DECODE_NANOS.add(System.nanoTime() - start);
+        }
+    }
+
+    public static <T> T fromJson(String json, Type type) {
+        long start = System.nanoTime();
+        try {
+            return GSON.fromJson(json, type);
+        } finally {
+            DECODES.increment();
+            DECODE_NANOS.add(System.nanoTime() - start);
+        }
+    }
+
+    public static <T> T fromJson(Reader reader, Class<T> type) {
+        long start = System.nanoTime();
+        try {
+            return GSON.fromJson(reader, type);
+        } finally {
+            DECODES.increment();
+            DECODE_NANOS.add(System.nanoTime() - start);
+        }
+    }
+
+    public static Stats stats() {
+        return new Stats(ENCODES.sum(), ENCODE_NANOS.sum(), DECODES.sum(), DECODE_NANOS.sum());
+    }
+}
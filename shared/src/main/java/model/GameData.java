@@ -16,4 +16,8 @@ public record GameData(Integer gameID, String whiteUsername, String blackUsernam
         }
         return new GameData(gameID, whiteUsername, username, gameName, game);
     }
+
+    public GameData withGame(ChessGame game) {
+        return new GameData(gameID, whiteUsername, blackUsername, gameName, game);
+    }
 }
@@ -21,18 +21,28 @@ public class UserGameCommand {
 
     private final ChessMove move;
 
+    // Set on CONNECT by clients that apply MOVE_APPLIED messages instead of a LOAD_GAME after every move
+    private final Boolean moveUpdates;
+
     public UserGameCommand(CommandType commandType, String authToken, Integer gameID, ChessMove move) {
+        this(commandType, authToken, gameID, move, null);
+    }
+
+    public UserGameCommand(CommandType commandType, String authToken, Integer gameID, ChessMove move, Boolean moveUpdates) {
         this.commandType = commandType;
         this.authToken = authToken;
         this.gameID = gameID;
         this.move = move;
+        this.moveUpdates = moveUpdates;
     }
 
     public enum CommandType {
         CONNECT,
         MAKE_MOVE,
         LEAVE,
-        RESIGN
+        RESIGN,
+        // Asks for a LOAD_GAME of the current state, sent by clients whose move updates fell out of sync
+        SYNC
     }
 
     public CommandType getCommandType() {
@@ -49,6 +59,8 @@ public class UserGameCommand {
 
     public ChessMove getMove() { return move; }
 
+    public boolean wantsMoveUpdates() { return Boolean.TRUE.equals(moveUpdates); }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -1,6 +1,7 @@
 package websocket.messages;
 
 import chess.ChessGame;
+import chess.ChessMove;
 import model.GameData;
 
 import java.util.Objects;
@@ -20,10 +21,18 @@ public class ServerMessage {
 
     String message;
 
+    // Set on MOVE_APPLIED, and sequence on LOAD_GAME sent to clients that take move updates
+    ChessMove move;
+
+    Long sequence;
+
+    ChessGame.GameStatus status;
+
     public enum ServerMessageType {
         LOAD_GAME,
         ERROR,
-        NOTIFICATION
+        NOTIFICATION,
+        MOVE_APPLIED
     }
 
     public ServerMessage(ServerMessageType type, GameData game, String errorMessage, String message) {
@@ -33,6 +42,35 @@ public class ServerMessage {
         this.message = message;
     }
 
+    /**
+     * Builds a LOAD_GAME message that also tells the client which move of the game the
+     * state is from, so it can tell whether a following MOVE_APPLIED picks up from it
+     *
+     * @param game     the game
+     * @param sequence number of moves the server has applied to the game
+     */
+    public static ServerMessage loadGame(GameData game, long sequence) {
+        ServerMessage message = new ServerMessage(ServerMessageType.LOAD_GAME, game, null, null);
+        message.sequence = sequence;
+        return message;
+    }
+
+    /**
+     * Builds a MOVE_APPLIED message, which a client that has the game at sequence - 1
+     * applies to its own copy instead of loading the whole game again
+     *
+     * @param move     the move that was made
+     * @param sequence number of moves the server has applied to the game, including this one
+     * @param status   the status of the game after the move
+     */
+    public static ServerMessage moveApplied(ChessMove move, long sequence, ChessGame.GameStatus status) {
+        ServerMessage message = new ServerMessage(ServerMessageType.MOVE_APPLIED, null, null, null);
+        message.move = move;
+        message.sequence = sequence;
+        message.status = status;
+        return message;
+    }
+
     public ServerMessageType getServerMessageType() {
         return this.serverMessageType;
     }
@@ -43,6 +81,12 @@ public class ServerMessage {
 
     public String getMessage() { return this.message; }
 
+    public ChessMove getMove() { return this.move; }
+
+    public Long getSequence() { return this.sequence; }
+
+    public ChessGame.GameStatus getStatus() { return this.status; }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -0,0 +1,78 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AttackProbeTests {
+
+    private static final ChessGame.TeamColor WHITE = ChessGame.TeamColor.WHITE;
+    private static final ChessGame.TeamColor BLACK = ChessGame.TeamColor.BLACK;
+
+    @Test
+    void pawnsAttackForwardDiagonals() {
+        ChessBoard board = new ChessBoard();
+        board.addPiece(new ChessPosition(4, 4), new ChessPiece(WHITE, ChessPiece.PieceType.PAWN));
+        board.addPiece(new ChessPosition(6, 6), new ChessPiece(BLACK, ChessPiece.PieceType.PAWN));
+
+        assertTrue(board.isSquareAttacked(new ChessPosition(5, 3), WHITE));
+        assertTrue(board.isSquareAttacked(new ChessPosition(5, 5), WHITE));
+        assertFalse(board.isSquareAttacked(new ChessPosition(3, 3), WHITE));
+        assertFalse(board.isSquareAttacked(new ChessPosition(5, 4), WHITE));
+
+        assertTrue(board.isSquareAttacked(new ChessPosition(5, 7), BLACK));
+        assertFalse(board.isSquareAttacked(new ChessPosition(7, 7), BLACK));
+    }
+
+    @Test
+    void knightsAndKings() {
+        ChessBoard board = new ChessBoard();
+        board.addPiece(new ChessPosition(1, 2), new ChessPiece(BLACK, ChessPiece.PieceType.KNIGHT));
+        board.addPiece(new ChessPosition(8, 8), new ChessPiece(BLACK, ChessPiece.PieceType.KING));
+
+        assertTrue(board.isSquareAttacked(new ChessPosition(3, 3), BLACK));
+        assertTrue(board.isSquareAttacked(new ChessPosition(2, 4), BLACK));
+        assertFalse(board.isSquareAttacked(new ChessPosition(2, 2), BLACK));
+        assertTrue(board.isSquareAttacked(new ChessPosition(7, 7), BLACK));
+        assertFalse(board.isSquareAttacked(new ChessPosition(6, 6), BLACK));
+    }
+
+    @Test
+    void slidersAreBlocked() {
+        ChessBoard board = new ChessBoard();
+        board.addPiece(new ChessPosition(1, 1), new ChessPiece(WHITE, ChessPiece.PieceType.QUEEN));
+        board.addPiece(new ChessPosition(4, 4), new ChessPiece(BLACK, ChessPiece.PieceType.PAWN));
+
+        assertTrue(board.isSquareAttacked(new ChessPosition(8, 1), WHITE));
+        assertTrue(board.isSquareAttacked(new ChessPosition(4, 4), WHITE));
+        assertFalse(board.isSquareAttacked(new ChessPosition(5, 5), WHITE));
+    }
+
+    @Test
+    void occupancyCanLeaveOutAPiece() {
+        ChessBoard board = new ChessBoard();
+        board.addPiece(new ChessPosition(1, 1), new ChessPiece(BLACK, ChessPiece.PieceType.ROOK));
+        board.addPiece(new ChessPosition(1, 5), new ChessPiece(WHITE, ChessPiece.PieceType.KING));
+        int kingSquare = Bitboards.square(1, 5);
+        int behindKing = Bitboards.square(1, 6);
+
+        assertFalse(board.isSquareAttacked(behindKing, BLACK, board.getOccupancy()));
+        assertTrue(board.isSquareAttacked(behindKing, BLACK, board.getOccupancy() & ~(1L << kingSquare)));
+    }
+
+    @Test
+    void checkMatchesProbe() {
+        ChessGame game = new ChessGame();
+        ChessBoard board = new ChessBoard();
+        board.addPiece(new ChessPosition(1, 5), new ChessPiece(WHITE, ChessPiece.PieceType.KING));
+        board.addPiece(new ChessPosition(8, 5), new ChessPiece(BLACK, ChessPiece.PieceType.KING));
+        board.addPiece(new ChessPosition(4, 2), new ChessPiece(BLACK, ChessPiece.PieceType.BISHOP));
+        game.setBoard(board);
+
+        assertTrue(game.isInCheck(WHITE));
+        assertFalse(game.isInCheck(BLACK));
+
+        board.addPiece(new ChessPosition(3, 3), new ChessPiece(WHITE, ChessPiece.PieceType.PAWN));
+        assertFalse(game.isInCheck(WHITE));
+    }
+}
@@ -0,0 +1,107 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BitboardMaskTests {
+
+    @Test
+    void addPieceSetsMasks() {
+        ChessBoard board = new ChessBoard();
+        board.addPiece(new ChessPosition(1, 2), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
+
+        assertEquals(bit(1, 2), board.getPieces(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
+        assertEquals(bit(1, 2), board.getOccupancy(ChessGame.TeamColor.WHITE));
+        assertEquals(0, board.getOccupancy(ChessGame.TeamColor.BLACK));
+        assertEquals(bit(1, 2), board.getOccupancy());
+    }
+
+    @Test
+    void replaceAndRemoveClearMasks() {
+        ChessBoard board = new ChessBoard();
+        ChessPosition square = new ChessPosition(4, 4);
+        board.addPiece(square, new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
+        board.addPiece(square, new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
+
+        assertEquals(0, board.getPieces(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
+        assertEquals(0, board.getOccupancy(ChessGame.TeamColor.WHITE));
+        assertEquals(bit(4, 4), board.getPieces(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
+
+        board.addPiece(square, null);
+        assertEquals(0, board.getPieces(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
+        assertEquals(0, board.getOccupancy());
+    }
+
+    @Test
+    void resetBoardMasks() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+
+        assertEquals(0xFFFFL, board.getOccupancy(ChessGame.TeamColor.WHITE));
+        assertEquals(0xFFFF000000000000L, board.getOccupancy(ChessGame.TeamColor.BLACK));
+        assertEquals(0xFF00L, board.getPieces(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+        assertEquals(bit(8, 5), board.getPieces(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+    }
+
+    @Test
+    void promotionMovesPieceBetweenMasks() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        ChessBoard board = new ChessBoard();
+        board.addPiece(new ChessPosition(1, 1), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        board.addPiece(new ChessPosition(8, 8), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        board.addPiece(new ChessPosition(7, 2), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+        game.setBoard(board);
+        game.setTeamTurn(ChessGame.TeamColor.WHITE);
+
+        game.makeMove(new ChessMove(new ChessPosition(7, 2), new ChessPosition(8, 2), ChessPiece.PieceType.QUEEN));
+
+        assertEquals(0, board.getPieces(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+        assertEquals(bit(8, 2), board.getPieces(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
+        assertMasksMatchGrid(board);
+    }
+
+    @Test
+    void masksFollowPlayedMoves() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        game.makeMove(new ChessMove(new ChessPosition(7, 4), new ChessPosition(5, 4), null));
+        game.makeMove(new ChessMove(new ChessPosition(4, 5), new ChessPosition(5, 4), null));
+        game.makeMove(new ChessMove(new ChessPosition(8, 4), new ChessPosition(5, 4), null));
+
+        assertMasksMatchGrid(game.getBoard());
+    }
+
+    @Test
+    void masksRebuiltWhenGridReplaced() {
+        ChessBoard source = new ChessBoard();
+        source.resetBoard();
+        ChessBoard board = new ChessBoard();
+        board.chessBoard = source.chessBoard;
+
+        assertEquals(0xFFFFL, board.getOccupancy(ChessGame.TeamColor.WHITE));
+        assertMasksMatchGrid(board);
+    }
+
+    // Every piece mask holds exactly the squares the grid has that piece on
+    private static void assertMasksMatchGrid(ChessBoard board) {
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (ChessPiece.PieceType type : ChessPiece.PieceType.values()) {
+                long expected = 0;
+                for (int row = 1; row <= 8; row++) {
+                    for (int column = 1; column <= 8; column++) {
+                        ChessPiece piece = board.getPiece(new ChessPosition(row, column));
+                        if (piece != null && piece.getTeamColor() == color && piece.getPieceType() == type) {
+                            expected |= bit(row, column);
+                        }
+                    }
+                }
+                assertEquals(expected, board.getPieces(color, type), color + " " + type);
+            }
+        }
+    }
+
+    private static long bit(int row, int column) {
+        return 1L << ((row - 1) * 8 + column - 1);
+    }
+}
@@ -0,0 +1,94 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.*;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoardStateTests {
+
+    @Test
+    void kingSquareFollowsKing() throws InvalidMoveException {
+        ChessGame game = Fen.parse("4k3/8/8/8/8/8/8/4K3 w - - 0 1");
+        assertEquals(new ChessPosition(1, 5), game.getBoard().getKing(ChessGame.TeamColor.WHITE));
+
+        game.makeMove(new ChessMove(new ChessPosition(1, 5), new ChessPosition(2, 4), null));
+        assertEquals(new ChessPosition(2, 4), game.getBoard().getKing(ChessGame.TeamColor.WHITE));
+        assertEquals(Bitboards.square(8, 5), game.getBoard().getKingSquare(ChessGame.TeamColor.BLACK));
+
+        game.getBoard().addPiece(new ChessPosition(8, 5), null);
+        assertNull(game.getBoard().getKing(ChessGame.TeamColor.BLACK));
+        assertEquals(-1, game.getBoard().getKingSquare(ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    void kingSquareAfterGridReplaced() {
+        ChessBoard board = new ChessBoard();
+        board.chessBoard = Fen.parseBoard("8/8/8/3k4/8/8/8/K7").chessBoard;
+
+        assertEquals(new ChessPosition(5, 4), board.getKing(ChessGame.TeamColor.BLACK));
+        assertEquals(new ChessPosition(1, 1), board.getKing(ChessGame.TeamColor.WHITE));
+    }
+
+    @Test
+    void piecePositions() {
+        ChessBoard board = Fen.parseBoard("8/8/8/3k4/8/8/1P6/K7");
+
+        assertEquals(List.of(new ChessPosition(1, 1), new ChessPosition(2, 2)),
+                board.getPiecePositions(ChessGame.TeamColor.WHITE));
+        assertEquals(List.of(new ChessPosition(5, 4)), board.getPiecePositions(ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    void copyIsIndependent() {
+        ChessGame game = new ChessGame();
+        ChessGame copy = new ChessGame(game);
+        copy.makeReversibleMove(new ChessMove(new ChessPosition(1, 5), new ChessPosition(3, 5), null));
+
+        assertEquals(new ChessPosition(1, 5), game.getBoard().getKing(ChessGame.TeamColor.WHITE));
+        assertEquals(new ChessPosition(3, 5), copy.getBoard().getKing(ChessGame.TeamColor.WHITE));
+        assertNotEquals(game.positionKey(), copy.positionKey());
+    }
+
+    @Test
+    void sharedPositionsAndMoves() {
+        assertSame(ChessPosition.of(4, 5), ChessPosition.of(4, 5));
+        assertEquals(new ChessPosition(4, 5), ChessPosition.of(4, 5));
+        assertEquals(new ChessPosition(0, 9), ChessPosition.of(0, 9));
+
+        ChessMove move = ChessMove.of(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null);
+        assertSame(move, ChessMove.of(Bitboards.square(2, 5), Bitboards.square(4, 5)));
+        assertEquals(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null), move);
+        assertNotSame(ChessMove.of(ChessPosition.of(7, 1), ChessPosition.of(8, 1), ChessPiece.PieceType.QUEEN),
+                ChessMove.of(ChessPosition.of(7, 1), ChessPosition.of(8, 1), ChessPiece.PieceType.QUEEN));
+    }
+
+    @Test
+    void sharedPieces() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        ChessPiece pawn = ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
+        assertSame(pawn, game.getBoard().getPiece(ChessPosition.of(2, 1)));
+        assertSame(pawn, game.getBoard().getPiece(ChessPosition.of(2, 8)));
+
+        game.getBoard().addPiece(ChessPosition.of(4, 4), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
+        assertSame(ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT),
+                game.getBoard().getPiece(ChessPosition.of(4, 4)));
+
+        ChessGame promotion = Fen.parse("8/P3k3/8/8/8/8/8/4K3 w - - 0 1");
+        promotion.makeMove(ChessMove.of(ChessPosition.of(7, 1), ChessPosition.of(8, 1), ChessPiece.PieceType.QUEEN));
+        assertSame(ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN),
+                promotion.getBoard().getPiece(ChessPosition.of(8, 1)));
+        assertEquals(ChessPiece.PieceType.PAWN, pawn.getPieceType());
+    }
+
+    @Test
+    void deserializedBoardUsesSharedPieces() {
+        ChessGame game = new Gson().fromJson(new Gson().toJson(new ChessGame()), ChessGame.class);
+
+        assertEquals(new ChessPosition(1, 5), game.getBoard().getKing(ChessGame.TeamColor.WHITE));
+        assertSame(ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING),
+                game.getBoard().getPiece(ChessPosition.of(1, 5)));
+    }
+}
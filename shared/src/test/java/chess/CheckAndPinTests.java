@@ -0,0 +1,97 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CheckAndPinTests {
+
+    private static final ChessGame.TeamColor WHITE = ChessGame.TeamColor.WHITE;
+    private static final ChessGame.TeamColor BLACK = ChessGame.TeamColor.BLACK;
+
+    @Test
+    void doubleCheckOnlyKingMoves() {
+        ChessGame game = gameWith(
+                new ChessPosition(1, 5), new ChessPiece(WHITE, ChessPiece.PieceType.KING),
+                new ChessPosition(3, 1), new ChessPiece(WHITE, ChessPiece.PieceType.ROOK),
+                new ChessPosition(8, 5), new ChessPiece(BLACK, ChessPiece.PieceType.ROOK),
+                new ChessPosition(3, 4), new ChessPiece(BLACK, ChessPiece.PieceType.KNIGHT),
+                new ChessPosition(8, 8), new ChessPiece(BLACK, ChessPiece.PieceType.KING));
+
+        // Taking the knight or blocking the file would each answer one check but not both
+        assertTrue(game.validMoves(new ChessPosition(3, 1)).isEmpty());
+        assertFalse(game.validMoves(new ChessPosition(1, 5)).isEmpty());
+    }
+
+    @Test
+    void singleCheckBlockOrCapture() {
+        ChessGame game = gameWith(
+                new ChessPosition(1, 5), new ChessPiece(WHITE, ChessPiece.PieceType.KING),
+                new ChessPosition(3, 1), new ChessPiece(WHITE, ChessPiece.PieceType.ROOK),
+                new ChessPosition(6, 8), new ChessPiece(WHITE, ChessPiece.PieceType.ROOK),
+                new ChessPosition(8, 5), new ChessPiece(BLACK, ChessPiece.PieceType.ROOK),
+                new ChessPosition(8, 1), new ChessPiece(BLACK, ChessPiece.PieceType.KING));
+
+        assertEquals(Set.of(new ChessPosition(3, 5)), targets(game.validMoves(new ChessPosition(3, 1))));
+        assertEquals(Set.of(new ChessPosition(6, 5)), targets(game.validMoves(new ChessPosition(6, 8))));
+    }
+
+    @Test
+    void kingCannotRetreatAlongCheckingRay() {
+        ChessGame game = gameWith(
+                new ChessPosition(4, 4), new ChessPiece(WHITE, ChessPiece.PieceType.KING),
+                new ChessPosition(4, 1), new ChessPiece(BLACK, ChessPiece.PieceType.ROOK),
+                new ChessPosition(8, 8), new ChessPiece(BLACK, ChessPiece.PieceType.KING));
+
+        Set<ChessPosition> kingTargets = targets(game.validMoves(new ChessPosition(4, 4)));
+        assertFalse(kingTargets.contains(new ChessPosition(4, 5)));
+        assertFalse(kingTargets.contains(new ChessPosition(4, 3)));
+        assertTrue(kingTargets.contains(new ChessPosition(5, 4)));
+    }
+
+    @Test
+    void pinnedBishopMovesAlongPin() {
+        ChessGame game = gameWith(
+                new ChessPosition(1, 1), new ChessPiece(WHITE, ChessPiece.PieceType.KING),
+                new ChessPosition(3, 3), new ChessPiece(WHITE, ChessPiece.PieceType.BISHOP),
+                new ChessPosition(6, 6), new ChessPiece(BLACK, ChessPiece.PieceType.QUEEN),
+                new ChessPosition(8, 1), new ChessPiece(BLACK, ChessPiece.PieceType.KING));
+
+        assertEquals(Set.of(new ChessPosition(2, 2), new ChessPosition(4, 4), new ChessPosition(5, 5),
+                new ChessPosition(6, 6)), targets(game.validMoves(new ChessPosition(3, 3))));
+    }
+
+    @Test
+    void pinnedKnightCannotMove() {
+        ChessGame game = gameWith(
+                new ChessPosition(1, 5), new ChessPiece(WHITE, ChessPiece.PieceType.KING),
+                new ChessPosition(2, 5), new ChessPiece(WHITE, ChessPiece.PieceType.KNIGHT),
+                new ChessPosition(7, 5), new ChessPiece(BLACK, ChessPiece.PieceType.QUEEN),
+                new ChessPosition(8, 1), new ChessPiece(BLACK, ChessPiece.PieceType.KING));
+
+        assertTrue(game.validMoves(new ChessPosition(2, 5)).isEmpty());
+    }
+
+    private static ChessGame gameWith(Object... squaresAndPieces) {
+        ChessBoard board = new ChessBoard();
+        for (int i = 0; i < squaresAndPieces.length; i += 2) {
+            board.addPiece((ChessPosition) squaresAndPieces[i], (ChessPiece) squaresAndPieces[i + 1]);
+        }
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        game.setTeamTurn(WHITE);
+        return game;
+    }
+
+    private static Set<ChessPosition> targets(Collection<ChessMove> moves) {
+        Set<ChessPosition> targets = new HashSet<>();
+        for (ChessMove move : moves) {
+            targets.add(move.getEndPosition());
+        }
+        return targets;
+    }
+}
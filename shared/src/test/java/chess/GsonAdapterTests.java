@@ -0,0 +1,97 @@
+package chess;
+
+import com.google.gson.*;
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GsonAdapterTests {
+    private final Gson gson = new Gson();
+
+    @Test
+    void compactGame() {
+        ChessGame game = new ChessGame();
+        String json = gson.toJson(game);
+
+        assertEquals("{\"teamTurn\":\"WHITE\",\"chessBoard\":\"rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR\",\"gameOver\":false}", json);
+        ChessGame read = gson.fromJson(json, ChessGame.class);
+        assertEquals(game.getBoard(), read.getBoard());
+        assertEquals(game.getTeamTurn(), read.getTeamTurn());
+    }
+
+    @Test
+    void gameRoundTrip() {
+        for (Perft.Case perftCase : Perft.REFERENCE_CASES) {
+            ChessGame game = Fen.parse(perftCase.fen());
+            game.setGameOver();
+            ChessGame read = gson.fromJson(gson.toJson(game), ChessGame.class);
+
+            assertEquals(game.toFen(), read.toFen());
+            assertTrue(read.isGameOver());
+        }
+    }
+
+    @Test
+    void movesPlayedRoundTrip() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(ChessMove.of(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null));
+        game.makeMove(ChessMove.of(ChessPosition.of(7, 5), ChessPosition.of(5, 5), null));
+
+        assertEquals(2, gson.fromJson(gson.toJson(game), ChessGame.class).getMovesPlayed());
+    }
+
+    @Test
+    void readsGridGames() {
+        ChessGame game = Fen.parse("n1n5/PPPk4/8/8/8/8/4Kppp/5N1N b - - 0 1");
+        JsonArray grid = new JsonArray();
+        for (int row = 1; row <= 8; row++) {
+            JsonArray rank = new JsonArray();
+            for (int column = 1; column <= 8; column++) {
+                ChessPiece piece = game.getBoard().getPiece(ChessPosition.of(row, column));
+                if (piece == null) {
+                    rank.add(JsonNull.INSTANCE);
+                    continue;
+                }
+                JsonObject pieceJson = new JsonObject();
+                pieceJson.addProperty("pieceColor", piece.getTeamColor().name());
+                pieceJson.addProperty("type", piece.getPieceType().name());
+                rank.add(pieceJson);
+            }
+            grid.add(rank);
+        }
+        JsonObject board = new JsonObject();
+        board.add("chessBoard", grid);
+        JsonObject legacy = new JsonObject();
+        legacy.addProperty("teamTurn", "BLACK");
+        legacy.add("chessBoard", board);
+        legacy.addProperty("gameOver", false);
+
+        ChessGame read = gson.fromJson(legacy.toString(), ChessGame.class);
+        assertEquals(game.getBoard(), read.getBoard());
+        assertEquals(ChessGame.TeamColor.BLACK, read.getTeamTurn());
+        assertEquals(24, read.evaluateStatus().legalMoves());
+    }
+
+    @Test
+    void coordinateMoves() {
+        ChessMove move = ChessMove.of(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null);
+        ChessMove promotion = new ChessMove(ChessPosition.of(7, 1), ChessPosition.of(8, 2), ChessPiece.PieceType.KNIGHT);
+
+        assertEquals("\"e2e4\"", gson.toJson(move));
+        assertEquals("\"a7b8n\"", gson.toJson(promotion));
+        assertEquals(move, gson.fromJson("\"e2e4\"", ChessMove.class));
+        assertEquals(promotion, gson.fromJson("\"a7b8n\"", ChessMove.class));
+        assertThrows(JsonParseException.class, () -> gson.fromJson("\"e2e9\"", ChessMove.class));
+    }
+
+    @Test
+    void readsObjectMoves() {
+        String json = "{\"startPosition\":{\"row\":7,\"col\":1},\"endPosition\":{\"row\":8,\"col\":1},\"promotionPiece\":\"QUEEN\"}";
+        assertEquals(new ChessMove(new ChessPosition(7, 1), new ChessPosition(8, 1), ChessPiece.PieceType.QUEEN),
+                gson.fromJson(json, ChessMove.class));
+
+        // Off the board moves have no coordinates, so they keep the object form
+        ChessMove offBoard = new ChessMove(new ChessPosition(0, 1), new ChessPosition(1, 1), null);
+        assertEquals(offBoard, gson.fromJson(gson.toJson(offBoard), ChessMove.class));
+    }
+}
@@ -0,0 +1,113 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LegalMoveQueryTests {
+
+    @Test
+    void countsMatchMoveLists() {
+        for (Perft.Case perftCase : Perft.REFERENCE_CASES) {
+            ChessGame game = Fen.parse(perftCase.fen());
+            ChessGame.TeamColor team = game.getTeamTurn();
+            int size = game.allValidMoves(team).size();
+
+            assertEquals(size, game.countLegalMoves(team), perftCase.name());
+            assertEquals(size > 0, game.hasAnyLegalMove(team), perftCase.name());
+
+            int[] visited = {0};
+            assertTrue(game.forEachLegalMove(team, move -> {
+                visited[0]++;
+                return true;
+            }));
+            assertEquals(size, visited[0], perftCase.name());
+        }
+    }
+
+    @Test
+    void sinkCanStopEarly() {
+        ChessGame game = new ChessGame();
+        int[] visited = {0};
+
+        assertFalse(game.forEachLegalMove(ChessGame.TeamColor.WHITE, move -> ++visited[0] < 3));
+        assertEquals(3, visited[0]);
+    }
+
+    @Test
+    void noMovesInMateOrStalemate() {
+        ChessGame mate = Fen.parse("k7/8/8/8/8/8/5PPP/r5K1 w - - 0 1");
+        assertEquals(0, mate.countLegalMoves(ChessGame.TeamColor.WHITE));
+        assertFalse(mate.hasAnyLegalMove(ChessGame.TeamColor.WHITE));
+        assertTrue(mate.isInCheckmate(ChessGame.TeamColor.WHITE));
+
+        ChessGame stalemate = Fen.parse("k7/2Q5/1K6/8/8/8/8/8 b - - 0 1");
+        assertEquals(0, stalemate.countLegalMoves(ChessGame.TeamColor.BLACK));
+        assertTrue(stalemate.isInStalemate(ChessGame.TeamColor.BLACK));
+        assertFalse(stalemate.isInCheckmate(ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    void promotionsCountedPerPiece() {
+        ChessGame game = Fen.parse("7k/P7/8/8/8/8/8/K7 w - - 0 1");
+        assertEquals(4 + 3, game.countLegalMoves(ChessGame.TeamColor.WHITE));
+    }
+
+    @Test
+    void statusAfterMoves() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        ChessGame.GameStatus start = game.evaluateStatus();
+        assertEquals(new ChessGame.GameStatus(ChessGame.TeamColor.WHITE, false, false, false, 20), start);
+        assertSame(start, game.evaluateStatus());
+
+        // Fool's mate
+        game.makeMove(ChessMove.of(ChessPosition.of(2, 6), ChessPosition.of(3, 6), null));
+        assertEquals(ChessGame.TeamColor.BLACK, game.evaluateStatus().teamTurn());
+        game.makeMove(ChessMove.of(ChessPosition.of(7, 5), ChessPosition.of(5, 5), null));
+        game.makeMove(ChessMove.of(ChessPosition.of(2, 7), ChessPosition.of(4, 7), null));
+        game.makeMove(ChessMove.of(ChessPosition.of(8, 4), ChessPosition.of(4, 8), null));
+
+        ChessGame.GameStatus mate = game.evaluateStatus();
+        assertEquals(new ChessGame.GameStatus(ChessGame.TeamColor.WHITE, true, true, false, 0), mate);
+        assertEquals(game.isInCheckmate(ChessGame.TeamColor.WHITE), mate.checkmate());
+    }
+
+    @Test
+    void statusFollowsDirectBoardChanges() {
+        ChessGame game = Fen.parse("k7/2Q5/1K6/8/8/8/8/8 b - - 0 1");
+        assertTrue(game.evaluateStatus().stalemate());
+
+        game.getBoard().addPiece(ChessPosition.of(3, 3), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+        ChessGame.GameStatus status = game.evaluateStatus();
+        assertFalse(status.stalemate());
+        assertEquals(1, status.legalMoves());
+    }
+
+    @Test
+    void moveValidationFromTable() throws InvalidMoveException {
+        ChessGame game = Fen.parse("4k3/P7/8/8/8/8/8/4K2R w - - 0 1");
+        ChessPosition pawn = ChessPosition.of(7, 1);
+        ChessPosition queenSquare = ChessPosition.of(8, 1);
+
+        assertThrows(InvalidMoveException.class, () -> game.makeMove(ChessMove.of(pawn, queenSquare, null)));
+        assertThrows(InvalidMoveException.class,
+                () -> game.makeMove(ChessMove.of(pawn, queenSquare, ChessPiece.PieceType.KING)));
+        assertThrows(InvalidMoveException.class,
+                () -> game.makeMove(ChessMove.of(ChessPosition.of(1, 8), ChessPosition.of(1, 8), null)));
+        assertThrows(InvalidMoveException.class,
+                () -> game.makeMove(ChessMove.of(ChessPosition.of(1, 8), new ChessPosition(0, 9), null)));
+        assertThrows(InvalidMoveException.class,
+                () -> game.makeMove(ChessMove.of(ChessPosition.of(1, 8), ChessPosition.of(2, 7), null)));
+
+        assertEquals(4, game.validMoves(pawn).size());
+        game.makeMove(ChessMove.of(pawn, queenSquare, ChessPiece.PieceType.KNIGHT));
+        assertEquals(ChessPiece.PieceType.KNIGHT, game.getBoard().getPiece(queenSquare).getPieceType());
+
+        // Black's table is built for the new position
+        assertEquals(game.allValidMoves(ChessGame.TeamColor.BLACK).size(), game.evaluateStatus().legalMoves());
+        assertEquals(new HashSet<>(new LegalMoveGenerator(game.getBoard(), ChessGame.TeamColor.BLACK)
+                .movesFrom(ChessPosition.of(8, 5))), new HashSet<>(game.validMoves(ChessPosition.of(8, 5))));
+    }
+}
@@ -0,0 +1,73 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MagicBitboardTests {
+
+    private static final int[][] ROOK_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+    @Test
+    void emptyBoardAttacks() {
+        int d4 = Bitboards.square(4, 4);
+        assertEquals(14, Long.bitCount(Bitboards.rookAttacks(d4, 0)));
+        assertEquals(13, Long.bitCount(Bitboards.bishopAttacks(d4, 0)));
+        assertEquals(27, Long.bitCount(Bitboards.queenAttacks(d4, 0)));
+    }
+
+    @Test
+    void tableStatsReportTheTables() {
+        Bitboards.TableStats stats = Bitboards.tableStats();
+        // One entry per blocker subset of each square's relevant squares, 102400 for rooks and 5248 for bishops
+        assertEquals(102400 + 5248, stats.entries());
+        assertEquals(stats.entries() * 8L, stats.bytes());
+        assertTrue(stats.initNanos() > 0);
+    }
+
+    @Test
+    void lookupsMatchRayScan() {
+        Random random = new Random(240);
+        for (int square = 0; square < 64; square++) {
+            for (int i = 0; i < 200; i++) {
+                // Sparse and dense boards both
+                long occupancy = (i % 2 == 0) ? random.nextLong() & random.nextLong() : random.nextLong();
+                assertEquals(scan(square, occupancy, ROOK_DIRECTIONS), Bitboards.rookAttacks(square, occupancy),
+                        "rook on " + square);
+                assertEquals(scan(square, occupancy, BISHOP_DIRECTIONS), Bitboards.bishopAttacks(square, occupancy),
+                        "bishop on " + square);
+            }
+        }
+    }
+
+    @Test
+    void ownSquareDoesNotMatter() {
+        int e4 = Bitboards.square(4, 5);
+        long blockers = 1L << Bitboards.square(4, 7);
+        assertEquals(Bitboards.rookAttacks(e4, blockers), Bitboards.rookAttacks(e4, blockers | 1L << e4));
+    }
+
+    // Walks each ray a square at a time, stopping on the first occupied square
+    private static long scan(int square, long occupancy, int[][] directions) {
+        long attacks = 0;
+        int row = square / 8;
+        int column = square % 8;
+        for (int[] direction : directions) {
+            int r = row + direction[0];
+            int c = column + direction[1];
+            while (r >= 0 && r < 8 && c >= 0 && c < 8) {
+                long bit = 1L << (r * 8 + c);
+                attacks |= bit;
+                if ((occupancy & bit) != 0) {
+                    break;
+                }
+                r += direction[0];
+                c += direction[1];
+            }
+        }
+        return attacks;
+    }
+}
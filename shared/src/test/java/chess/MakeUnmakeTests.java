@@ -0,0 +1,92 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+
+import java.util.Collection;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MakeUnmakeTests {
+
+    @Test
+    void unmakeRestoresQuietMove() {
+        ChessGame game = new ChessGame();
+        ChessBoard before = copyOf(game.getBoard());
+
+        ChessGame.MoveUndo undo = game.makeReversibleMove(
+                new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null));
+        assertEquals(ChessGame.TeamColor.BLACK, game.getTeamTurn());
+
+        game.unmakeMove(undo);
+        assertEquals(before, game.getBoard());
+        assertEquals(ChessGame.TeamColor.WHITE, game.getTeamTurn());
+    }
+
+    @Test
+    void unmakeRestoresCaptureAndPromotion() {
+        ChessGame game = new ChessGame();
+        ChessBoard board = new ChessBoard();
+        board.addPiece(new ChessPosition(1, 1), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        board.addPiece(new ChessPosition(8, 8), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        board.addPiece(new ChessPosition(7, 2), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+        board.addPiece(new ChessPosition(8, 3), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+        game.setBoard(board);
+        ChessBoard before = copyOf(board);
+
+        ChessGame.MoveUndo undo = game.makeReversibleMove(
+                new ChessMove(new ChessPosition(7, 2), new ChessPosition(8, 3), ChessPiece.PieceType.KNIGHT));
+        assertEquals(new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT),
+                board.getPiece(new ChessPosition(8, 3)));
+        assertEquals(0, board.getPieces(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+
+        game.unmakeMove(undo);
+        assertEquals(before, board);
+        assertEquals(0, board.getPieces(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
+        assertNotEquals(0, board.getPieces(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+    }
+
+    @Test
+    void validMovesLeavesBoardUnchanged() {
+        ChessGame game = new ChessGame();
+        ChessBoard before = copyOf(game.getBoard());
+
+        for (int row = 1; row <= 8; row++) {
+            for (int column = 1; column <= 8; column++) {
+                ChessPosition position = new ChessPosition(row, column);
+                if (game.getBoard().getPiece(position) != null) {
+                    game.validMoves(position);
+                }
+            }
+        }
+        assertEquals(before, game.getBoard());
+        assertEquals(ChessGame.TeamColor.WHITE, game.getTeamTurn());
+    }
+
+    @Test
+    void pinnedPieceStaysOnPin() {
+        ChessGame game = new ChessGame();
+        ChessBoard board = new ChessBoard();
+        board.addPiece(new ChessPosition(1, 5), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        board.addPiece(new ChessPosition(2, 5), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
+        board.addPiece(new ChessPosition(8, 5), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+        board.addPiece(new ChessPosition(8, 1), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        game.setBoard(board);
+
+        Collection<ChessMove> moves = game.validMoves(new ChessPosition(2, 5));
+        assertEquals(6, moves.size());
+        for (ChessMove move : moves) {
+            assertEquals(5, move.getEndPosition().getColumn());
+        }
+    }
+
+    private static ChessBoard copyOf(ChessBoard board) {
+        ChessBoard copy = new ChessBoard();
+        for (int row = 1; row <= 8; row++) {
+            for (int column = 1; column <= 8; column++) {
+                ChessPosition position = new ChessPosition(row, column);
+                copy.addPiece(position, board.getPiece(position));
+            }
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,55 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PackedMoveTests {
+
+    @Test
+    void roundTripsEverySquareAndPromotion() {
+        ChessPiece.PieceType[] promotions = {null, ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.ROOK,
+                ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.KNIGHT};
+        for (int from = 0; from < 64; from++) {
+            for (int to = 0; to < 64; to++) {
+                for (ChessPiece.PieceType promotion : promotions) {
+                    int move = PackedMove.encode(from, to, promotion, (from + to) % 2 == 0);
+                    assertEquals(from, PackedMove.from(move));
+                    assertEquals(to, PackedMove.to(move));
+                    assertEquals(promotion, PackedMove.promotion(move));
+                    assertEquals((from + to) % 2 == 0, PackedMove.isCapture(move));
+                }
+            }
+        }
+    }
+
+    @Test
+    void chessMoveRoundTrip() {
+        ChessMove move = new ChessMove(new ChessPosition(7, 1), new ChessPosition(8, 2), ChessPiece.PieceType.KNIGHT);
+        assertEquals(move, PackedMove.toChessMove(PackedMove.encode(move)));
+    }
+
+    @Test
+    void sameMoveIgnoresCaptureFlag() {
+        int quiet = PackedMove.encode(12, 28, null, false);
+        int capture = PackedMove.encode(12, 28, null, true);
+        assertTrue(PackedMove.sameMove(quiet, capture));
+        assertFalse(PackedMove.sameMove(quiet, PackedMove.encode(12, 20, null, false)));
+    }
+
+    @Test
+    void moveListGrowsAndClears() {
+        MoveList list = new MoveList();
+        for (int i = 0; i < 1000; i++) {
+            list.add(PackedMove.encode(i % 64, (i / 64) % 64, null, false));
+        }
+        assertEquals(1000, list.size());
+        assertEquals(PackedMove.encode(999 % 64, (999 / 64) % 64, null, false), list.get(999));
+        assertTrue(list.contains(PackedMove.encode(5, 0, null, true)));
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(1000));
+
+        list.clear();
+        assertTrue(list.isEmpty());
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(0));
+    }
+}
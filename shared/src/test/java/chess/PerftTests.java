@@ -0,0 +1,75 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PerftTests {
+
+    @Test
+    void referencePositions() {
+        for (Perft.Case perftCase : Perft.REFERENCE_CASES) {
+            ChessGame game = Fen.parse(perftCase.fen());
+            assertEquals(perftCase.nodes(), Perft.perft(game, perftCase.depth()),
+                    String.format("Wrong node count for %s at depth %d", perftCase.name(), perftCase.depth()));
+        }
+    }
+
+    @Test
+    void perftLeavesGameUnchanged() {
+        ChessGame game = Fen.parse("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1");
+        ChessBoard before = Fen.parseBoard("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8");
+        long key = game.positionKey();
+
+        Perft.perft(game, 3);
+
+        assertEquals(before, game.getBoard());
+        assertEquals(key, game.positionKey());
+        assertEquals(ChessGame.TeamColor.WHITE, game.getTeamTurn());
+    }
+
+    @Test
+    void divideAddsUpToPerft() {
+        ChessGame game = new ChessGame();
+        Map<ChessMove, Long> counts = Perft.divide(game, 3);
+
+        assertEquals(20, counts.size());
+        assertEquals(8_902, counts.values().stream().mapToLong(Long::longValue).sum());
+    }
+
+    @Test
+    void parallelDivideMatchesDivide() {
+        ChessGame game = Fen.parse("n1n5/PPPk4/8/8/8/8/4Kppp/5N1N b - - 0 1");
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int splitPlies = 1; splitPlies <= 3; splitPlies++) {
+                ParallelPerft.Divide divide = ParallelPerft.divide(game, 4, pool, splitPlies);
+                assertEquals(Perft.divide(game, 4), divide.counts());
+                assertEquals(182_838, divide.total().nodes());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void parallelDivideLeavesGameUnchanged() {
+        ChessGame game = new ChessGame();
+        ChessGame before = new ChessGame();
+
+        ParallelPerft.divide(game, 3);
+
+        assertEquals(before.getBoard(), game.getBoard());
+        assertEquals(before.positionKey(), game.positionKey());
+    }
+
+    @Test
+    void invalidFen() {
+        assertThrows(IllegalArgumentException.class, () -> Fen.parse("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP w"));
+        assertThrows(IllegalArgumentException.class, () -> Fen.parse("rnbqkbnr/pppppppp/9/8/8/8/PPPPPPPP/RNBQKBNR w"));
+        assertThrows(IllegalArgumentException.class, () -> Fen.parse("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR x"));
+    }
+}
@@ -0,0 +1,79 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PositionCacheTests {
+
+    @AfterEach
+    void tearDown() {
+        ChessGame.setPositionCache(null);
+    }
+
+    @Test
+    void gamesShareOpeningPositions() throws InvalidMoveException {
+        PositionCache cache = new PositionCache(64);
+        ChessGame.setPositionCache(cache);
+
+        ChessGame first = new ChessGame();
+        ChessGame second = new ChessGame();
+        ChessMove e4 = ChessMove.of(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null);
+
+        first.makeMove(e4);
+        assertEquals(20, first.evaluateStatus().legalMoves());
+        assertEquals(new PositionCache.Stats(0, 2, 0, 2, 64), cache.stats());
+
+        second.makeMove(e4);
+        assertEquals(first.evaluateStatus(), second.evaluateStatus());
+        assertEquals(new PositionCache.Stats(2, 2, 0, 2, 64), cache.stats());
+        assertEquals(new HashSet<>(first.validMoves(ChessPosition.of(7, 5))),
+                new HashSet<>(second.validMoves(ChessPosition.of(7, 5))));
+    }
+
+    @Test
+    void cachedTablesAreNotShared() throws InvalidMoveException {
+        ChessGame.setPositionCache(new PositionCache(64));
+        ChessGame first = new ChessGame();
+        ChessGame second = new ChessGame();
+        first.evaluateStatus();
+        second.evaluateStatus();
+
+        first.makeMove(ChessMove.of(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null));
+        first.evaluateStatus();
+
+        assertEquals(20, second.evaluateStatus().legalMoves());
+        second.makeMove(ChessMove.of(ChessPosition.of(2, 4), ChessPosition.of(4, 4), null));
+    }
+
+    @Test
+    void clockKeepsReferencedEntries() throws InvalidMoveException {
+        PositionCache cache = new PositionCache(2);
+        ChessGame.setPositionCache(cache);
+
+        ChessGame start = new ChessGame();
+        start.evaluateStatus();
+        ChessGame afterE4 = new ChessGame();
+        afterE4.makeMove(ChessMove.of(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null));
+        afterE4.evaluateStatus();
+
+        // A new game looks the start position up, so the hand passes over it
+        new ChessGame().evaluateStatus();
+        ChessGame afterD4 = new ChessGame();
+        afterD4.makeMove(ChessMove.of(ChessPosition.of(2, 4), ChessPosition.of(4, 4), null));
+        afterD4.evaluateStatus();
+
+        PositionCache.Stats stats = cache.stats();
+        assertEquals(1, stats.evictions());
+        assertEquals(2, stats.size());
+        new ChessGame().evaluateStatus();
+        assertEquals(stats.hits() + 1, cache.stats().hits());
+    }
+
+    @Test
+    void invalidCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new PositionCache(0));
+    }
+}
@@ -0,0 +1,90 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PositionFormatTests {
+
+    @Test
+    void startPositionFen() {
+        assertEquals("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1", new ChessGame().toFen());
+        assertEquals("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR", new ChessGame().getBoard().toFen());
+    }
+
+    @Test
+    void fenRoundTrip() {
+        for (Perft.Case perftCase : Perft.REFERENCE_CASES) {
+            ChessGame game = ChessGame.fromFen(perftCase.fen());
+            assertEquals(perftCase.fen(), game.toFen());
+            assertEquals(game.positionKey(), ChessGame.fromFen(game.toFen()).positionKey());
+        }
+    }
+
+    @Test
+    void fenCarriesTheMoveCount() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(ChessMove.of(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null));
+        assertEquals("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b - - 0 1", game.toFen());
+        assertEquals(1, ChessGame.fromFen(game.toFen()).getMovesPlayed());
+
+        game.makeMove(ChessMove.of(ChessPosition.of(7, 5), ChessPosition.of(5, 5), null));
+        game.makeMove(ChessMove.of(ChessPosition.of(1, 7), ChessPosition.of(3, 6), null));
+        assertEquals("rnbqkbnr/pppp1ppp/8/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R b - - 0 2", game.toFen());
+        assertEquals(3, ChessGame.fromFen(game.toFen()).getMovesPlayed());
+
+        assertEquals(0, ChessGame.fromFen("8/8/8/8/8/8/8/K6k w - - 0 1").getMovesPlayed());
+        assertEquals(13, ChessGame.fromFen("8/8/8/8/8/8/8/K6k b - - 0 7").getMovesPlayed());
+        assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen("8/8/8/8/8/8/8/K6k w - - 0 x"));
+        assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen("8/8/8/8/8/8/8/K6k w - - 0 0"));
+    }
+
+    @Test
+    void fenGameOver() {
+        ChessGame game = ChessGame.fromFen("k7/2Q5/1K6/8/8/8/8/8 b - - 0 1");
+        game.setGameOver();
+
+        assertEquals("k7/2Q5/1K6/8/8/8/8/8 b - - 0 1 over", game.toFen());
+        ChessGame parsed = ChessGame.fromFen(game.toFen());
+        assertTrue(parsed.isGameOver());
+        assertEquals(ChessGame.TeamColor.BLACK, parsed.getTeamTurn());
+        assertEquals(game.getBoard(), parsed.getBoard());
+    }
+
+    @Test
+    void bytesRoundTrip() {
+        for (Perft.Case perftCase : Perft.REFERENCE_CASES) {
+            ChessGame game = ChessGame.fromFen(perftCase.fen());
+            byte[] bytes = game.toBytes();
+            assertEquals(PositionCodec.SIZE, bytes.length);
+
+            ChessGame decoded = ChessGame.fromBytes(bytes);
+            assertEquals(game.getBoard(), decoded.getBoard());
+            assertEquals(game.getTeamTurn(), decoded.getTeamTurn());
+            assertFalse(decoded.isGameOver());
+        }
+
+        ChessGame over = ChessGame.fromFen("8/k1P5/8/1K6/8/8/8/8 b - - 0 1");
+        over.setGameOver();
+        ChessGame decoded = ChessGame.fromBytes(over.toBytes());
+        assertTrue(decoded.isGameOver());
+        assertEquals(ChessGame.TeamColor.BLACK, decoded.getTeamTurn());
+    }
+
+    @Test
+    void bytesCarryTheMoveCount() {
+        ChessGame game = new ChessGame();
+        for (int movesPlayed : new int[]{0, 1, 255, 256, 70_000, Integer.MAX_VALUE}) {
+            game.setMovesPlayed(movesPlayed);
+            assertEquals(movesPlayed, ChessGame.fromBytes(game.toBytes()).getMovesPlayed());
+        }
+    }
+
+    @Test
+    void invalidBytes() {
+        assertThrows(IllegalArgumentException.class, () -> ChessGame.fromBytes(new byte[32]));
+        byte[] bytes = new ChessGame().toBytes();
+        bytes[20] = (byte) 0xDD;
+        assertThrows(IllegalArgumentException.class, () -> ChessGame.fromBytes(bytes));
+    }
+}
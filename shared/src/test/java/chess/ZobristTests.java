@@ -0,0 +1,71 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ZobristTests {
+
+    @Test
+    void unmakeRestoresKey() {
+        ChessGame game = new ChessGame();
+        long key = game.positionKey();
+        long boardKey = game.getBoard().getZobristKey();
+
+        ChessGame.MoveUndo first = game.makeReversibleMove(
+                new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        ChessGame.MoveUndo second = game.makeReversibleMove(
+                new ChessMove(new ChessPosition(7, 4), new ChessPosition(5, 4), null));
+        ChessGame.MoveUndo capture = game.makeReversibleMove(
+                new ChessMove(new ChessPosition(4, 5), new ChessPosition(5, 4), null));
+        assertNotEquals(key, game.positionKey());
+
+        game.unmakeMove(capture);
+        game.unmakeMove(second);
+        game.unmakeMove(first);
+        assertEquals(key, game.positionKey());
+        assertEquals(boardKey, game.getBoard().getZobristKey());
+    }
+
+    @Test
+    void transpositionsShareKey() {
+        ChessGame knightsFirst = new ChessGame();
+        knightsFirst.makeReversibleMove(new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null));
+        knightsFirst.makeReversibleMove(new ChessMove(new ChessPosition(8, 7), new ChessPosition(6, 6), null));
+        knightsFirst.makeReversibleMove(new ChessMove(new ChessPosition(1, 2), new ChessPosition(3, 3), null));
+
+        ChessGame otherOrder = new ChessGame();
+        otherOrder.makeReversibleMove(new ChessMove(new ChessPosition(1, 2), new ChessPosition(3, 3), null));
+        otherOrder.makeReversibleMove(new ChessMove(new ChessPosition(8, 7), new ChessPosition(6, 6), null));
+        otherOrder.makeReversibleMove(new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null));
+
+        assertEquals(knightsFirst.positionKey(), otherOrder.positionKey());
+    }
+
+    @Test
+    void incrementalKeyMatchesFreshBoard() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 4), new ChessPosition(4, 4), null));
+        game.makeMove(new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null));
+        game.makeMove(new ChessMove(new ChessPosition(4, 4), new ChessPosition(5, 5), null));
+
+        ChessBoard fresh = new ChessBoard();
+        for (int row = 1; row <= 8; row++) {
+            for (int column = 1; column <= 8; column++) {
+                ChessPosition position = new ChessPosition(row, column);
+                fresh.addPiece(position, game.getBoard().getPiece(position));
+            }
+        }
+        assertEquals(fresh.getZobristKey(), game.getBoard().getZobristKey());
+    }
+
+    @Test
+    void sideToMoveChangesKey() {
+        ChessGame white = new ChessGame();
+        ChessGame black = new ChessGame();
+        black.setTeamTurn(ChessGame.TeamColor.BLACK);
+
+        assertEquals(white.getBoard().getZobristKey(), black.getBoard().getZobristKey());
+        assertNotEquals(white.positionKey(), black.positionKey());
+    }
+}
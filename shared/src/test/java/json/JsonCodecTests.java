@@ -0,0 +1,52 @@
+package json;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import org.junit.jupiter.api.*;
+import websocket.messages.ServerMessage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonCodecTests {
+
+    @Test
+    void countsEncodesAndDecodes() {
+        JsonCodec.Stats before = JsonCodec.stats();
+
+        String json = JsonCodec.toJson(new ChessGame());
+        ChessGame game = JsonCodec.fromJson(json, ChessGame.class);
+
+        JsonCodec.Stats after = JsonCodec.stats();
+        assertEquals(ChessGame.TeamColor.WHITE, game.getTeamTurn());
+        assertEquals(before.encodes() + 1, after.encodes());
+        assertEquals(before.decodes() + 1, after.decodes());
+        assertTrue(after.encodeNanos() > before.encodeNanos());
+    }
+
+    @Test
+    void sharedInstance() {
+        assertSame(JsonCodec.gson(), JsonCodec.gson());
+        assertEquals("\"e2e4\"", JsonCodec.toJson(ChessMove.of(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null)));
+    }
+
+    @Test
+    void moveAppliedRoundTrip() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        ChessMove move = ChessMove.of(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null);
+        game.makeMove(move);
+        ServerMessage message = ServerMessage.moveApplied(move, 7, game.evaluateStatus());
+
+        String json = JsonCodec.toJson(message);
+        assertEquals("{\"serverMessageType\":\"MOVE_APPLIED\",\"move\":\"e2e4\",\"sequence\":7,"
+                + "\"status\":{\"teamTurn\":\"BLACK\",\"check\":false,\"checkmate\":false,\"stalemate\":false,"
+                + "\"legalMoves\":20}}", json);
+
+        ServerMessage read = JsonCodec.fromJson(json, ServerMessage.class);
+        assertEquals(ServerMessage.ServerMessageType.MOVE_APPLIED, read.getServerMessageType());
+        assertEquals(move, read.getMove());
+        assertEquals(7L, read.getSequence());
+        assertEquals(game.evaluateStatus(), read.getStatus());
+    }
+}